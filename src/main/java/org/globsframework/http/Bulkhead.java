@@ -0,0 +1,118 @@
+package org.globsframework.http;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of an operation: at most maxConcurrent handlers in flight (from the call to their future
+ * completion), at most maxQueued waiting for a slot, the others are rejected with a 503. A slow route so only
+ * exhausts its own slots, not the executor shared with the other routes.
+ * <p>
+ * The queue holds the handlers to call, no thread waits for a slot. Thread safe.
+ */
+public class Bulkhead {
+    // the handlers given a slot by the releases of the handlers run by release(Executor) on this thread
+    private static final ThreadLocal<ArrayDeque<Runnable>> DRAINING = new ThreadLocal<>();
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int retryAfterSeconds;
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private final LongAdder rejected = new LongAdder();
+    private int inFlight;
+
+    public Bulkhead(int maxConcurrent, int maxQueued, int retryAfterSeconds) {
+        if (maxConcurrent <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead : " + maxConcurrent + " concurrent, " + maxQueued + " queued");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Run the handler now if a slot is free, else queue it. Once started, the handler must call release when
+     * done.
+     *
+     * @return false if the queue is full: the handler will not be run.
+     */
+    public boolean submit(Runnable handler) {
+        synchronized (this) {
+            if (inFlight >= maxConcurrent) {
+                if (queue.size() >= maxQueued) {
+                    rejected.increment();
+                    return false;
+                }
+                queue.add(handler);
+                return true;
+            }
+            inFlight++;
+        }
+        handler.run();
+        return true;
+    }
+
+    /**
+     * Give the slot back.
+     *
+     * @return the queued handler the slot is given to, to be run by the caller, or null.
+     */
+    public Runnable release() {
+        synchronized (this) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                inFlight--;
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Give the slot back, the queued handler it is given to being run by the executor. A handler that completes
+     * and releases its slot while run does not start the next one from its own stack: with an inline executor the
+     * queue is drained in a loop by the first release of the thread.
+     */
+    public void release(Executor executor) {
+        Runnable next = release();
+        if (next == null) {
+            return;
+        }
+        ArrayDeque<Runnable> draining = DRAINING.get();
+        if (draining != null) {
+            draining.add(next);
+            return;
+        }
+        draining = new ArrayDeque<>();
+        DRAINING.set(draining);
+        try {
+            do {
+                executor.execute(next);
+            } while ((next = draining.poll()) != null);
+        } finally {
+            DRAINING.remove();
+        }
+    }
+
+    /**
+     * Remove a handler that is still queued (its request was aborted).
+     */
+    public synchronized void cancel(Runnable handler) {
+        queue.remove(handler);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
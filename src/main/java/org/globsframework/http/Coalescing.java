@@ -0,0 +1,91 @@
+package org.globsframework.http;
+
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single flight of a GET operation: while a request is handled, the identical ones (same path and query string, same
+ * key headers, same response encoding) wait for its response instead of calling the handler. The response is
+ * encoded once, its buffers are shared by all the exchanges.
+ * <p>
+ * Only for the operations whose response does not depend on the caller beyond the key headers. A response that
+ * can not be shared (error status, stream, file, deadline exceeded) is not: the waiting requests then call the
+ * handler. Thread safe.
+ */
+public class Coalescing {
+    private final String[] keyHeaders;
+    private final ConcurrentHashMap<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param keyHeaders the headers whose values are part of the key, as Authorization or Accept-Language.
+     */
+    public Coalescing(String... keyHeaders) {
+        this.keyHeaders = keyHeaders;
+    }
+
+    public String[] getKeyHeaders() {
+        return keyHeaders;
+    }
+
+    /**
+     * @return null if no request of this key is in flight: the caller handles it and must then call
+     * {@link #complete}, else the response of the request in flight, completed with null if it can not be shared.
+     */
+    public CompletableFuture<SharedResponse> join(String key) {
+        CompletableFuture<SharedResponse> existing = inFlight.putIfAbsent(key, new CompletableFuture<>());
+        if (existing != null) {
+            coalesced.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * @param response null if it can not be shared.
+     */
+    public void complete(String key, SharedResponse response) {
+        CompletableFuture<SharedResponse> flight = inFlight.remove(key);
+        if (flight != null) {
+            flight.complete(response);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return the number of requests answered with the response of another one.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @param body read only through {@link #body()}, null if the response has no content.
+     */
+    public record SharedResponse(int status, String reasonPhrase, Header[] headers, EntityDetails entityDetails,
+                                 List<ByteBuffer> body) {
+
+        /**
+         * @return views of the body buffers, for one exchange.
+         */
+        public List<ByteBuffer> body() {
+            if (body == null) {
+                return null;
+            }
+            List<ByteBuffer> views = new ArrayList<>(body.size());
+            for (ByteBuffer buffer : body) {
+                views.add(buffer.duplicate());
+            }
+            return views;
+        }
+    }
+}
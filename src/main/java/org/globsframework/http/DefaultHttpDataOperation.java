@@ -23,7 +23,13 @@ public class DefaultHttpDataOperation implements MutableHttpDataOperation {
     private boolean hasSensitiveData = false;
     private GlobType headerType;
     private Glob emptyHeader;
-    private Executor executor = Runnable::run;
+    private Executor executor;
+    private int receiveWindow = DEFAULT_RECEIVE_WINDOW;
+    private boolean streamedBody;
+    private boolean chunkedResponse;
+    private boolean binaryFormat;
+    private ResponseCompression responseCompression;
+    private OperationPolicies policies = OperationPolicies.NONE;
 
     public DefaultHttpDataOperation(HttpOp verb, GlobType bodyType, GlobType queryType, HttpDataTreatmentWithHeader httpTreatment) {
         this.verb = verb;
@@ -87,7 +93,59 @@ public class DefaultHttpDataOperation implements MutableHttpDataOperation {
     }
 
     public Executor getExecutor() {
-        return executor;
+        return executor != null ? executor : INLINE_EXECUTOR;
+    }
+
+    public boolean hasExecutor() {
+        return executor != null;
+    }
+
+    public int getReceiveWindow() {
+        return receiveWindow;
+    }
+
+    public void withReceiveWindow(int bytes) {
+        this.receiveWindow = bytes;
+    }
+
+    public boolean hasStreamedBody() {
+        return streamedBody;
+    }
+
+    public void withStreamedBody(boolean streamedBody) {
+        this.streamedBody = streamedBody;
+    }
+
+    public boolean hasChunkedResponse() {
+        return chunkedResponse;
+    }
+
+    public void withChunkedResponse(boolean chunkedResponse) {
+        this.chunkedResponse = chunkedResponse;
+    }
+
+    public boolean hasBinaryFormat() {
+        return binaryFormat;
+    }
+
+    public void withBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+
+    public ResponseCompression getResponseCompression() {
+        return responseCompression;
+    }
+
+    public void withResponseCompression(ResponseCompression responseCompression) {
+        this.responseCompression = responseCompression;
+    }
+
+    public OperationPolicies getPolicies() {
+        return policies;
+    }
+
+    public void withPolicies(OperationPolicies policies) {
+        this.policies = policies;
     }
 
     public void addHeader(String name, String value) {
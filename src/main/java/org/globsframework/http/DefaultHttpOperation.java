@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -27,7 +28,13 @@ public class DefaultHttpOperation implements MutableHttpDataOperation {
     private boolean hasSensitiveData = false;
     private GlobType headerType;
     private Glob emptyHeader;
-    private Executor executor = Runnable::run;
+    private Executor executor;
+    private int receiveWindow = DEFAULT_RECEIVE_WINDOW;
+    private boolean streamedBody;
+    private boolean chunkedResponse;
+    private boolean binaryFormat;
+    private ResponseCompression responseCompression;
+    private OperationPolicies policies = OperationPolicies.NONE;
 
     public DefaultHttpOperation(HttpOp verb, GlobType bodyType, GlobType queryType, HttpTreatmentWithHeader httpTreatment) {
         this.verb = verb;
@@ -92,7 +99,59 @@ public class DefaultHttpOperation implements MutableHttpDataOperation {
     }
 
     public Executor getExecutor() {
-        return executor;
+        return executor != null ? executor : INLINE_EXECUTOR;
+    }
+
+    public boolean hasExecutor() {
+        return executor != null;
+    }
+
+    public int getReceiveWindow() {
+        return receiveWindow;
+    }
+
+    public void withReceiveWindow(int bytes) {
+        this.receiveWindow = bytes;
+    }
+
+    public boolean hasStreamedBody() {
+        return streamedBody;
+    }
+
+    public void withStreamedBody(boolean streamedBody) {
+        this.streamedBody = streamedBody;
+    }
+
+    public boolean hasChunkedResponse() {
+        return chunkedResponse;
+    }
+
+    public void withChunkedResponse(boolean chunkedResponse) {
+        this.chunkedResponse = chunkedResponse;
+    }
+
+    public boolean hasBinaryFormat() {
+        return binaryFormat;
+    }
+
+    public void withBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+
+    public ResponseCompression getResponseCompression() {
+        return responseCompression;
+    }
+
+    public void withResponseCompression(ResponseCompression responseCompression) {
+        this.responseCompression = responseCompression;
+    }
+
+    public OperationPolicies getPolicies() {
+        return policies;
+    }
+
+    public void withPolicies(OperationPolicies policies) {
+        this.policies = policies;
     }
 
     public void addHeader(String name, String value) {
@@ -115,12 +174,27 @@ public class DefaultHttpOperation implements MutableHttpDataOperation {
         if (data == null || !data.isGlob() || data.asGlob() == null) {
             final CompletableFuture<Glob> consume = httpTreatment.consume(null, url, queryParameters == null ? emptyQuery : queryParameters,
                     header == null ? emptyHeader : header);
-            return consume == null ? CompletableFuture.completedFuture(null) : consume.thenApply(HttpOutputData::asGlob);
+            return toOutput(consume);
         } else {
             final CompletableFuture<Glob> consume = httpTreatment.consume(data.asGlob(), url, queryParameters == null ? emptyQuery : queryParameters,
                     header == null ? emptyHeader : header);
-            return consume == null ? CompletableFuture.completedFuture(null) : consume.thenApply(HttpOutputData::asGlob);
+            return toOutput(consume);
+        }
+    }
+
+    // cancelling the returned future (deadline exceeded) cancels the one of the handler
+    private static CompletableFuture<HttpOutputData> toOutput(CompletableFuture<Glob> consume) {
+        if (consume == null) {
+            return CompletableFuture.completedFuture(null);
         }
+        CompletableFuture<HttpOutputData> output = consume.thenApply(HttpOutputData::asGlob);
+        output.exceptionally(throwable -> {
+            if (throwable instanceof CancellationException) {
+                consume.cancel(true);
+            }
+            return null;
+        });
+        return output;
     }
 
     public void withComment(String comment) {
@@ -18,6 +18,10 @@ public class DefaultUrlMatcher {
                     return null;
                 }
 
+                public Glob parse(PathSegments segments) {
+                    return null;
+                }
+
                 public boolean withWildCard() {
                     return false;
                 }
@@ -74,6 +78,18 @@ public class DefaultUrlMatcher {
             return instantiate;
         }
 
+        public Glob parse(PathSegments segments) {
+            MutableGlob instantiate = globType.instantiate();
+            for (int i = 0, argByPositionLength = argByPosition.length; i < argByPositionLength; i++) {
+                GlobHttpUtils.FromStringConverter fromStringConverter = argByPosition[i];
+                if (fromStringConverter != null) {
+                    fromStringConverter.convert(instantiate, segments.segment(i));
+                }
+            }
+            instantiate.set(fields, segments.toArray(argByPosition.length - 1));
+            return instantiate;
+        }
+
         public boolean withWildCard() {
             return true;
         }
@@ -99,6 +115,17 @@ public class DefaultUrlMatcher {
             return instantiate;
         }
 
+        public Glob parse(PathSegments segments) {
+            MutableGlob instantiate = globType.instantiate();
+            for (int i = 0, argByPositionLength = argByPosition.length; i < argByPositionLength; i++) {
+                GlobHttpUtils.FromStringConverter fromStringConverter = argByPosition[i];
+                if (fromStringConverter != null) {
+                    fromStringConverter.convert(instantiate, segments.segment(i));
+                }
+            }
+            return instantiate;
+        }
+
         public boolean withWildCard() {
             return false;
         }
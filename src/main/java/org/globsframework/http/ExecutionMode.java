@@ -0,0 +1,16 @@
+package org.globsframework.http;
+
+/**
+ * Where the handlers of the operations registered without an executor are called.
+ */
+public enum ExecutionMode {
+    /**
+     * On the reactor thread: a blocking handler stalls every connection of that reactor.
+     */
+    INLINE,
+
+    /**
+     * On a new virtual thread per request: blocking handlers (JDBC, remote calls) only park their own thread.
+     */
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,140 @@
+package org.globsframework.http;
+
+import org.apache.hc.core5.http.ContentType;
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.model.Glob;
+import org.globsframework.serialisation.BinReader;
+import org.globsframework.serialisation.BinReaderFactory;
+import org.globsframework.serialisation.BinWriter;
+import org.globsframework.serialisation.BinWriterFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of Globs (globs-bin-serialisation) for service to service calls, negotiated with Content-Type
+ * and Accept (see OperationInfo.withBinaryFormat and the GlobHttpUtils client helpers).
+ * <p>
+ * A body is a sequence of globs, each one prefixed by its size on 4 bytes: a single Glob is a sequence of one.
+ */
+public class GlobBinaryCodec {
+    public static final String MIME_TYPE = "application/x-globs-bin";
+    public static final ContentType CONTENT_TYPE = ContentType.create(MIME_TYPE);
+    private static final BinWriterFactory WRITER_FACTORY = BinWriterFactory.create();
+    private static final BinReaderFactory READER_FACTORY = BinReaderFactory.create();
+
+    /**
+     * @param contentType the value of a Content-Type header.
+     */
+    public static boolean isBinary(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon == -1 ? contentType : contentType.substring(0, semicolon)).trim().equalsIgnoreCase(MIME_TYPE);
+    }
+
+    /**
+     * @param accept the value of an Accept header.
+     */
+    public static boolean accepts(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        for (String element : accept.split(",")) {
+            int semicolon = element.indexOf(';');
+            String mimeType = (semicolon == -1 ? element : element.substring(0, semicolon)).trim();
+            if (mimeType.equalsIgnoreCase(MIME_TYPE)) {
+                return semicolon == -1 || !isZeroQuality(element.substring(semicolon + 1));
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public static void write(OutputStream out, Glob... globs) throws IOException {
+        DataOutputStream dataOutput = new DataOutputStream(out);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (Glob glob : globs) {
+            encoded.reset();
+            BinWriter binWriter = WRITER_FACTORY.create(encoded);
+            binWriter.write(glob);
+            dataOutput.writeInt(encoded.size());
+            encoded.writeTo(dataOutput);
+        }
+        dataOutput.flush();
+    }
+
+    public static byte[] encode(Glob... globs) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out, globs);
+        } catch (IOException e) {
+            throw new RuntimeException(e); // not thrown by a ByteArrayOutputStream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the first Glob of the body, or null if empty.
+     */
+    public static Glob read(InputStream in, GlobType type) throws IOException {
+        DataInputStream dataInput = new DataInputStream(in);
+        byte[] encoded = readNext(dataInput);
+        return encoded == null ? null : decode(encoded, type);
+    }
+
+    public static Glob[] readArray(InputStream in, GlobType type) throws IOException {
+        DataInputStream dataInput = new DataInputStream(in);
+        List<Glob> globs = new ArrayList<>();
+        byte[] encoded;
+        while ((encoded = readNext(dataInput)) != null) {
+            globs.add(decode(encoded, type));
+        }
+        return globs.toArray(Glob[]::new);
+    }
+
+    private static byte[] readNext(DataInputStream dataInput) throws IOException {
+        int size;
+        try {
+            size = dataInput.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (size < 0) {
+            throw new IOException("Invalid glob size " + size);
+        }
+        // the size is sent by the client: the buffer grows with the bytes actually read, not allocated from it
+        byte[] encoded = dataInput.readNBytes(size);
+        if (encoded.length != size) {
+            throw new IOException("Glob size " + size + " but only " + encoded.length + " bytes");
+        }
+        return encoded;
+    }
+
+    private static Glob decode(byte[] encoded, GlobType type) {
+        BinReader binReader = READER_FACTORY.createGlobBinReader(new ByteArrayInputStream(encoded));
+        return binReader.read(type).orElse(null);
+    }
+}
@@ -0,0 +1,301 @@
+package org.globsframework.http;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.streams.IncrementalGlobJsonDecoder;
+import org.globsframework.json.GSonUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Non blocking client of the operations declared in a {@link HttpServerRegister}: the route, the verb, the body,
+ * query and header types are taken from the register, the body is sent in compact JSON (or in the
+ * {@link GlobBinaryCodec} format for the operations declared withBinaryFormat) and the response is decoded into
+ * the declared return type as it is received.
+ * <p>
+ * The connections are pooled per host; with {@link HttpVersionPolicy#FORCE_HTTP_2} (h2c) or a negotiated HTTP/2
+ * over TLS, the concurrent requests are multiplexed on them. A non 2xx response completes the future with a
+ * {@link HttpException} holding its status and body. The {@link RequestDeadline} of the request being handled,
+ * if any, is passed on in its header.
+ */
+public class GlobHttpAsyncClient implements Closeable {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    private final HttpServerRegister httpServerRegister;
+    private final HttpHost target;
+    private final CloseableHttpAsyncClient client;
+    private final boolean ownClient;
+    private int maxUrlLength = GlobHttpUtils.DEFAULT_MAX_URL_LENGTH;
+
+    /**
+     * With its own connection pool, HTTP/1.1 or HTTP/2 as negotiated, closed with this client.
+     */
+    public GlobHttpAsyncClient(HttpServerRegister httpServerRegister, HttpHost target) {
+        this(httpServerRegister, target, HttpVersionPolicy.NEGOTIATE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    public GlobHttpAsyncClient(HttpServerRegister httpServerRegister, HttpHost target, HttpVersionPolicy versionPolicy,
+                               int maxConnectionsPerRoute) {
+        this(httpServerRegister, target, createClient(versionPolicy, maxConnectionsPerRoute), true);
+    }
+
+    /**
+     * @param client shared with other clients: already started, and not closed with this one.
+     */
+    public GlobHttpAsyncClient(HttpServerRegister httpServerRegister, HttpHost target, CloseableHttpAsyncClient client) {
+        this(httpServerRegister, target, client, false);
+    }
+
+    private GlobHttpAsyncClient(HttpServerRegister httpServerRegister, HttpHost target, CloseableHttpAsyncClient client,
+                                boolean ownClient) {
+        this.httpServerRegister = httpServerRegister;
+        this.target = target;
+        this.client = client;
+        this.ownClient = ownClient;
+    }
+
+    private static CloseableHttpAsyncClient createClient(HttpVersionPolicy versionPolicy, int maxConnectionsPerRoute) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(versionPolicy).build())
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setMaxConnTotal(Math.max(maxConnectionsPerRoute, 2 * DEFAULT_MAX_CONNECTIONS_PER_ROUTE))
+                .build();
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
+        client.start();
+        return client;
+    }
+
+    /**
+     * A GET or DELETE whose url would be longer is sent as a POST of its query, if its operation accepts it (see
+     * OperationPolicies.withMethodOverride).
+     */
+    public void setMaxUrlLength(int maxUrlLength) {
+        this.maxUrlLength = maxUrlLength;
+    }
+
+    public CompletableFuture<Glob> get(String url, Glob pathParameters, Glob queryParameters) {
+        return execute(url, HttpOp.get, pathParameters, queryParameters, null, null);
+    }
+
+    public CompletableFuture<Glob> post(String url, Glob pathParameters, Glob queryParameters, Glob body) {
+        return execute(url, HttpOp.post, pathParameters, queryParameters, null, body);
+    }
+
+    public CompletableFuture<Glob> put(String url, Glob pathParameters, Glob queryParameters, Glob body) {
+        return execute(url, HttpOp.put, pathParameters, queryParameters, null, body);
+    }
+
+    public CompletableFuture<Glob> patch(String url, Glob pathParameters, Glob queryParameters, Glob body) {
+        return execute(url, HttpOp.patch, pathParameters, queryParameters, null, body);
+    }
+
+    public CompletableFuture<Glob> delete(String url, Glob pathParameters, Glob queryParameters) {
+        return execute(url, HttpOp.delete, pathParameters, queryParameters, null, null);
+    }
+
+    /**
+     * @param url     the url as registered, with its {param}.
+     * @param headers of the header type of the operation, sent as comma separated lists for the arrays.
+     * @return the response decoded in the return type of the operation, null if none is declared or if the
+     * response has no content.
+     * @throws IllegalArgumentException if the operation is not registered or if a Glob is not of its declared type.
+     */
+    public CompletableFuture<Glob> execute(String url, HttpOp verb, Glob pathParameters, Glob queryParameters,
+                                           Glob headers, Glob body) {
+        HttpOperation operation = findOperation(url, verb);
+        checkType(url, "path", httpServerRegister.verbMap.get(url).pathParameters, pathParameters);
+        checkType(url, "query", operation.getQueryParamType(), queryParameters);
+        checkType(url, "header", operation.getHeaderType(), headers);
+        checkType(url, "body", operation.getBodyType(), body);
+
+        String path = pathParameters != null ? GlobHttpUtils.createRoute(url, pathParameters) : url;
+        String query = queryParameters != null ? GlobHttpUtils.formatURL(queryParameters, operation.hasBinaryFormat()) : "";
+        boolean queryInBody = body == null && operation.getPolicies().methodOverride()
+                              && path.length() + query.length() + 1 > maxUrlLength;
+        AsyncRequestBuilder requestBuilder = AsyncRequestBuilder.create(queryInBody ? "POST" : verb.name().toUpperCase())
+                .setHttpHost(target)
+                .setPath(query.isEmpty() || queryInBody ? path : path + "?" + query);
+        if (queryInBody) {
+            requestBuilder.addHeader(GlobHttpUtils.METHOD_OVERRIDE_HEADER, verb.name().toUpperCase());
+            requestBuilder.setEntity(AsyncEntityProducers.create(query, ContentType.APPLICATION_FORM_URLENCODED));
+        }
+        if (headers != null) {
+            for (NameValuePair header : GlobHttpUtils.glob2ValuePairList(headers)) {
+                requestBuilder.addHeader(header.getName(), header.getValue());
+            }
+        }
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            requestBuilder.addHeader(RequestDeadline.HEADER, deadline.toHeaderValue());
+        }
+        if (operation.hasBinaryFormat()) {
+            requestBuilder.addHeader(HttpHeaders.ACCEPT, GlobBinaryCodec.MIME_TYPE);
+        }
+        if (body != null) {
+            requestBuilder.setEntity(createEntity(operation, body));
+        }
+
+        CompletableFuture<Glob> result = new CompletableFuture<>();
+        Future<Response> future = client.execute(requestBuilder.build(),
+                new GlobResponseConsumer(operation.getReturnType()), null, new FutureCallback<>() {
+                    public void completed(Response response) {
+                        if (response.failure() != null) {
+                            result.completeExceptionally(response.failure());
+                        } else if (response.status() >= 200 && response.status() < 300) {
+                            result.complete(response.glob());
+                        } else {
+                            result.completeExceptionally(new HttpException(response.status(), response.error()));
+                        }
+                    }
+
+                    public void failed(Exception ex) {
+                        result.completeExceptionally(ex);
+                    }
+
+                    public void cancelled() {
+                        result.cancel(false);
+                    }
+                });
+        result.whenComplete((glob, throwable) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private HttpOperation findOperation(String url, HttpOp verb) {
+        HttpServerRegister.Verb route = httpServerRegister.verbMap.get(url);
+        if (route != null) {
+            for (HttpOperation operation : route.operations) {
+                if (operation.verb() == verb) {
+                    return operation;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No operation " + verb + " registered for " + url);
+    }
+
+    private static void checkType(String url, String name, GlobType expected, Glob glob) {
+        if (glob != null && glob.getType() != expected) {
+            throw new IllegalArgumentException("The " + name + " of " + url + " is a " +
+                                               (expected == null ? "none" : expected.getName()) + " not a " + glob.getType().getName());
+        }
+    }
+
+    private static AsyncEntityProducer createEntity(HttpOperation operation, Glob body) {
+        if (operation.hasBinaryFormat()) {
+            return AsyncEntityProducers.create(GlobBinaryCodec.encode(body), GlobBinaryCodec.CONTENT_TYPE);
+        }
+        return AsyncEntityProducers.create(GSonUtils.encode(body, false).getBytes(UTF_8), ContentType.APPLICATION_JSON);
+    }
+
+    public void close() {
+        if (ownClient) {
+            client.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    private record Response(int status, Glob glob, String error, RuntimeException failure) {
+    }
+
+    // JSON decoded as the buffers are received if the type allows it, other bodies buffered until the end
+    private static class GlobResponseConsumer extends AbstractBinResponseConsumer<Response> {
+        private final GlobType returnType;
+        private int status;
+        private String reasonPhrase;
+        private boolean binary;
+        private IncrementalGlobJsonDecoder decoder;
+        private ByteArrayOutputStream buffered;
+
+        GlobResponseConsumer(GlobType returnType) {
+            this.returnType = returnType;
+        }
+
+        protected void start(HttpResponse response, ContentType contentType) {
+            status = response.getCode();
+            reasonPhrase = response.getReasonPhrase();
+            boolean success = status >= 200 && status < 300;
+            if (!success || returnType != null) {
+                binary = success && contentType != null && GlobBinaryCodec.isBinary(contentType.getMimeType());
+                if (success && !binary && IncrementalGlobJsonDecoder.isSupported(returnType)) {
+                    decoder = new IncrementalGlobJsonDecoder(returnType);
+                } else {
+                    buffered = new ByteArrayOutputStream();
+                }
+            }
+        }
+
+        protected int capacityIncrement() {
+            return Integer.MAX_VALUE;
+        }
+
+        protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+            if (decoder != null) {
+                decoder.feed(src);
+            } else if (buffered != null) {
+                Channels.newChannel(buffered).write(src);
+            } else {
+                src.position(src.limit()); // no return type: the body is ignored
+            }
+        }
+
+        protected Response buildResult() {
+            if (status < 200 || status >= 300) {
+                String error = buffered != null && buffered.size() > 0 ? buffered.toString(UTF_8) : reasonPhrase;
+                return new Response(status, null, error, null);
+            }
+            try {
+                if (decoder != null) {
+                    return new Response(status, decoder.complete(), null, null);
+                }
+                if (buffered == null || buffered.size() == 0) {
+                    return new Response(status, null, null, null);
+                }
+                ByteArrayInputStream content = new ByteArrayInputStream(buffered.toByteArray());
+                Glob glob = binary ? GlobBinaryCodec.read(content, returnType) :
+                        GSonUtils.decode(new InputStreamReader(content, StandardCharsets.UTF_8), returnType);
+                return new Response(status, glob, null, null);
+            } catch (IOException e) {
+                return new Response(status, null, null, new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                return new Response(status, null, null, e);
+            }
+        }
+
+        public void releaseResources() {
+            decoder = null;
+            buffered = null;
+        }
+    }
+}
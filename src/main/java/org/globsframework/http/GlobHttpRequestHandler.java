@@ -10,6 +10,18 @@ import java.util.List;
 
 public interface GlobHttpRequestHandler {
 
+    /**
+     * Called once the request headers are received.
+     *
+     * @return false if the request must be rejected (concurrency limit reached): it is not handled.
+     */
+    boolean admit();
+
+    /**
+     * @return the handler answering the request with a 503 instead of this one, once {@link #admit()} returned false.
+     */
+    GlobHttpRequestHandler rejected();
+
     void callHandler();
 
     void streamEnd(List<? extends Header> trailers);
@@ -22,7 +34,7 @@ public interface GlobHttpRequestHandler {
 
     void releaseResources();
 
-    void updateCapacityToReceiveData(CapacityChannel capacityChannel);
+    void updateCapacityToReceiveData(CapacityChannel capacityChannel) throws IOException;
 
     void failed(Exception cause);
 }
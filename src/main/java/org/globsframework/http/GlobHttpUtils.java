@@ -4,22 +4,49 @@ import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.net.WWWFormCodec;
+import org.globsframework.core.metamodel.GlobType;
 import org.globsframework.core.metamodel.fields.*;
 import org.globsframework.core.model.Glob;
 import org.globsframework.core.model.MutableGlob;
+import org.globsframework.core.utils.collections.Pair;
+import org.globsframework.http.model.HttpGlobResultBuilder;
 import org.globsframework.json.GSonUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class GlobHttpUtils {
+    /**
+     * Set on a POST whose form encoded body is the query of the GET or DELETE given as value (see
+     * {@link #createGet(String, Glob, int)}).
+     */
+    public static final String METHOD_OVERRIDE_HEADER = "X-HTTP-Method-Override";
+    public static final int DEFAULT_MAX_URL_LENGTH = 2048;
+    // prefix of the Glob query parameters encoded with GlobBinaryCodec, not in the url safe base64 alphabet
+    private static final char BINARY_GLOB_PREFIX = '~';
+    private static final byte[] ARRAY_START = "{\"values\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "}".getBytes(StandardCharsets.UTF_8);
+    private static final Map<GlobType, Pair<GlobType, GlobArrayField>> ARRAY_TYPES = new ConcurrentHashMap<>();
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
 
     public static String createRoute(String route, Glob urlParam) {
         String[] split = route.split("/");
@@ -84,11 +111,121 @@ public class GlobHttpUtils {
         return new HttpGet(createURL(route, format));
     }
 
+    /**
+     * @return a GET, or if its url would be longer than maxUrlLength, a POST of the parameters as a form with the
+     * {@link #METHOD_OVERRIDE_HEADER}: the server handles it as the GET if the operation accepts it (see
+     * OperationPolicies.withMethodOverride).
+     */
+    public static HttpUriRequestBase createGet(String route, Glob parameters, int maxUrlLength) {
+        String format = formatURL(parameters);
+        if (route.length() + format.length() + 1 <= maxUrlLength) {
+            return new HttpGet(createURL(route, format));
+        }
+        return createQueryInBody(HttpGet.METHOD_NAME, route, format);
+    }
+
+    public static HttpUriRequestBase createDelete(String route, Glob parameters, int maxUrlLength) {
+        String format = formatURL(parameters);
+        if (route.length() + format.length() + 1 <= maxUrlLength) {
+            return new HttpDelete(createURL(route, format));
+        }
+        return createQueryInBody(HttpDelete.METHOD_NAME, route, format);
+    }
+
+    private static HttpPost createQueryInBody(String method, String route, String format) {
+        HttpPost httpPost = new HttpPost(route);
+        httpPost.addHeader(METHOD_OVERRIDE_HEADER, method);
+        httpPost.setEntity(new StringEntity(format, ContentType.APPLICATION_FORM_URLENCODED));
+        return httpPost;
+    }
+
+    /**
+     * The body is sent in the {@link GlobBinaryCodec} format, and the response asked in it (the operation must be
+     * declared withBinaryFormat, see {@link #decode(HttpEntity, GlobType)}).
+     */
+    public static HttpPost createBinaryPost(String route, Glob parameters, Glob body) {
+        HttpPost httpPost = new HttpPost(createURL(route, formatURL(parameters)));
+        httpPost.setEntity(new ByteArrayEntity(GlobBinaryCodec.encode(body), GlobBinaryCodec.CONTENT_TYPE));
+        httpPost.addHeader(HttpHeaders.ACCEPT, GlobBinaryCodec.MIME_TYPE + ", " + ContentType.APPLICATION_JSON.getMimeType() + ";q=0.5");
+        return httpPost;
+    }
+
+    public static HttpPut createBinaryPut(String route, Glob parameters, Glob body) {
+        HttpPut httpPut = new HttpPut(createURL(route, formatURL(parameters)));
+        httpPut.setEntity(new ByteArrayEntity(GlobBinaryCodec.encode(body), GlobBinaryCodec.CONTENT_TYPE));
+        httpPut.addHeader(HttpHeaders.ACCEPT, GlobBinaryCodec.MIME_TYPE + ", " + ContentType.APPLICATION_JSON.getMimeType() + ";q=0.5");
+        return httpPut;
+    }
+
+    public static HttpGet createBinaryGet(String route, Glob parameters) {
+        HttpGet httpGet = createGet(route, parameters);
+        httpGet.addHeader(HttpHeaders.ACCEPT, GlobBinaryCodec.MIME_TYPE + ", " + ContentType.APPLICATION_JSON.getMimeType() + ";q=0.5");
+        return httpGet;
+    }
+
+    /**
+     * Decode a response in JSON or in the {@link GlobBinaryCodec} format, as given by its Content-Type.
+     *
+     * @return null if the response has no body.
+     */
+    public static Glob decode(HttpEntity entity, GlobType type) throws IOException {
+        if (entity == null) {
+            return null;
+        }
+        try (InputStream content = entity.getContent()) {
+            if (GlobBinaryCodec.isBinary(entity.getContentType())) {
+                return GlobBinaryCodec.read(content, type);
+            }
+            return GSonUtils.decode(new InputStreamReader(content, StandardCharsets.UTF_8), type);
+        }
+    }
+
+    public static Glob[] decodeArray(HttpEntity entity, GlobType type) throws IOException {
+        if (entity == null) {
+            return new Glob[0];
+        }
+        try (InputStream content = entity.getContent()) {
+            if (GlobBinaryCodec.isBinary(entity.getContentType())) {
+                return GlobBinaryCodec.readArray(content, type);
+            }
+            return decodeJsonArray(content, type);
+        }
+    }
+
+    // read from the stream as the values of a HttpGlobResultBuilder type: no String of the whole body
+    private static Glob[] decodeJsonArray(InputStream json, GlobType type) throws IOException {
+        PushbackInputStream content = new PushbackInputStream(json);
+        int first = content.read();
+        if (first == -1) {
+            return new Glob[0];
+        }
+        content.unread(first);
+        Pair<GlobType, GlobArrayField> arrayType = ARRAY_TYPES.computeIfAbsent(type, HttpGlobResultBuilder::create);
+        InputStream wrapped = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(ARRAY_START), content, new ByteArrayInputStream(ARRAY_END))));
+        Glob values = GSonUtils.decode(new InputStreamReader(wrapped, StandardCharsets.UTF_8), arrayType.getFirst());
+        Glob[] globs = values != null ? values.get(arrayType.getSecond()) : null;
+        return globs != null ? globs : new Glob[0];
+    }
+
     public static String formatURL(Glob parameters) {
-        return WWWFormCodec.format(glob2ValuePairList(parameters), StandardCharsets.UTF_8);
+        return formatURL(parameters, false);
+    }
+
+    /**
+     * @param binaryGlobs the Glob and Glob array parameters are encoded with {@link GlobBinaryCodec} instead of
+     *                    JSON (not the unions, whose type is given by their JSON kind).
+     */
+    public static String formatURL(Glob parameters, boolean binaryGlobs) {
+        return WWWFormCodec.format(glob2ValuePairList(parameters, binaryGlobs), StandardCharsets.UTF_8);
     }
 
     static List<NameValuePair> glob2ValuePairList(Glob parameters) {
+        return glob2ValuePairList(parameters, false);
+    }
+
+    // Globs are given as url safe base64 of compact JSON, or of their binary form prefixed by BINARY_GLOB_PREFIX
+    static List<NameValuePair> glob2ValuePairList(Glob parameters, boolean binaryGlobs) {
         List<NameValuePair> nameValuePairList = new ArrayList<>();
         if (parameters == null) {
             return nameValuePairList;
@@ -101,23 +238,29 @@ public class GlobHttpUtils {
                         String out;
 
                         public void visitGlob(GlobField<?> field, Glob value) throws Exception {
-                            String encode = GSonUtils.encode(value, true);
-                            out = Base64.getUrlEncoder().encodeToString(encode.getBytes(StandardCharsets.UTF_8));
+                            if (binaryGlobs) {
+                                out = BINARY_GLOB_PREFIX + URL_ENCODER.encodeToString(GlobBinaryCodec.encode(value));
+                            } else {
+                                out = URL_ENCODER.encodeToString(GSonUtils.encode(value, false).getBytes(StandardCharsets.UTF_8));
+                            }
                         }
 
                         public void visitGlobArray(GlobArrayField<?> field, Glob[] value) throws Exception {
-                            String encode = GSonUtils.encode(value, true);
-                            out = Base64.getUrlEncoder().encodeToString(encode.getBytes(StandardCharsets.UTF_8));
+                            if (binaryGlobs) {
+                                out = BINARY_GLOB_PREFIX + URL_ENCODER.encodeToString(GlobBinaryCodec.encode(value));
+                            } else {
+                                out = URL_ENCODER.encodeToString(GSonUtils.encode(value, false).getBytes(StandardCharsets.UTF_8));
+                            }
                         }
 
                         public void visitUnionGlob(GlobUnionField field, Glob value) throws Exception {
                             String encode = GSonUtils.encode(value, true);
-                            out = Base64.getUrlEncoder().encodeToString(encode.getBytes(StandardCharsets.UTF_8));
+                            out = URL_ENCODER.encodeToString(encode.getBytes(StandardCharsets.UTF_8));
                         }
 
                         public void visitUnionGlobArray(GlobArrayUnionField field, Glob[] value) throws Exception {
                             String encode = GSonUtils.encode(value, true);
-                            out = Base64.getUrlEncoder().encodeToString(encode.getBytes(StandardCharsets.UTF_8));
+                            out = URL_ENCODER.encodeToString(encode.getBytes(StandardCharsets.UTF_8));
                         }
                     };
                     field.safeAcceptValue(visitor, parameters.getValue(field));
@@ -147,6 +290,34 @@ public class GlobHttpUtils {
         return nameValuePairList;
     }
 
+    // the base64 is decoded to bytes, and read from them
+    private static Glob decodeGlob(String str, GlobType type) {
+        if (!str.isEmpty() && str.charAt(0) == BINARY_GLOB_PREFIX) {
+            try {
+                return GlobBinaryCodec.read(new ByteArrayInputStream(Base64.getUrlDecoder().decode(str.substring(1))), type);
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid binary glob " + str, e);
+            }
+        }
+        byte[] json = Base64.getUrlDecoder().decode(str);
+        return GSonUtils.decode(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8), type);
+    }
+
+    private static Glob[] decodeGlobArray(String str, GlobType type) {
+        if (!str.isEmpty() && str.charAt(0) == BINARY_GLOB_PREFIX) {
+            try {
+                return GlobBinaryCodec.readArray(new ByteArrayInputStream(Base64.getUrlDecoder().decode(str.substring(1))), type);
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid binary glob " + str, e);
+            }
+        }
+        try {
+            return decodeJsonArray(new ByteArrayInputStream(Base64.getUrlDecoder().decode(str)), type);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid glob array " + str, e);
+        }
+    }
+
     public static FromStringConverter createConverter(Field field, String arraySeparator) {
         return field.safeAccept(new FieldVisitor.AbstractWithErrorVisitor() {
             FromStringConverter fromStringConverter1;
@@ -159,6 +330,14 @@ public class GlobHttpUtils {
                 fromStringConverter1 = new ToLongConverter(field1);
             }
 
+            public void visitDouble(DoubleField field1) throws Exception {
+                fromStringConverter1 = new ToDoubleConverter(field1);
+            }
+
+            public void visitBigDecimal(BigDecimalField field1) throws Exception {
+                fromStringConverter1 = new ToBigDecimalConverter(field1);
+            }
+
             public void visitString(StringField field1) throws Exception {
                 fromStringConverter1 = new ToStringConverter(field1);
             }
@@ -171,6 +350,18 @@ public class GlobHttpUtils {
                 fromStringConverter1 = new ToLongArrayConverter(field1, arraySeparator);
             }
 
+            public void visitIntegerArray(IntegerArrayField field1) throws Exception {
+                fromStringConverter1 = new ToIntegerArrayConverter(field1, arraySeparator);
+            }
+
+            public void visitDoubleArray(DoubleArrayField field1) throws Exception {
+                fromStringConverter1 = new ToDoubleArrayConverter(field1, arraySeparator);
+            }
+
+            public void visitBooleanArray(BooleanArrayField field1) throws Exception {
+                fromStringConverter1 = new ToBooleanArrayConverter(field1, arraySeparator);
+            }
+
             public void visitDateTime(DateTimeField field1) throws Exception {
                 fromStringConverter1 = new ToDateTimeConverter(field1);
             }
@@ -186,7 +377,7 @@ public class GlobHttpUtils {
             public void visitGlob(GlobField<?> field) throws Exception {
                 fromStringConverter1 = new FromStringConverter() {
                     public void convert(MutableGlob glob, String str) {
-                        glob.set(field, GSonUtils.decode(new String(Base64.getUrlDecoder().decode(str), StandardCharsets.UTF_8), field.getTargetType()));
+                        glob.set(field, decodeGlob(str, field.getTargetType()));
                     }
                 };
             }
@@ -194,7 +385,7 @@ public class GlobHttpUtils {
             public void visitGlobArray(GlobArrayField<?> field) throws Exception {
                 fromStringConverter1 = new FromStringConverter() {
                     public void convert(MutableGlob glob, String str) {
-                        glob.set(field, GSonUtils.decodeArray(new String(Base64.getUrlDecoder().decode(str), StandardCharsets.UTF_8), field.getTargetType()));
+                        glob.set(field, decodeGlobArray(str, field.getTargetType()));
                     }
                 };
             }
@@ -205,6 +396,196 @@ public class GlobHttpUtils {
         void convert(MutableGlob glob, String str);
     }
 
+    /**
+     * @return a new accumulator of the values of the field, or null if it is not an array of primitives.
+     */
+    public static ArrayAccumulator createAccumulator(Field field, char separator) {
+        return switch (field) {
+            case StringArrayField stringArrayField -> new StringArrayAccumulator(stringArrayField, separator);
+            case LongArrayField longArrayField -> new LongArrayAccumulator(longArrayField, separator);
+            case IntegerArrayField integerArrayField -> new IntegerArrayAccumulator(integerArrayField, separator);
+            case DoubleArrayField doubleArrayField -> new DoubleArrayAccumulator(doubleArrayField, separator);
+            case BooleanArrayField booleanArrayField -> new BooleanArrayAccumulator(booleanArrayField, separator);
+            default -> null;
+        };
+    }
+
+    /**
+     * Values of an array field collected over the repeated parameters of a request, in a growable buffer, and
+     * written once into the Glob (the array converters copy the whole array for each parameter).
+     */
+    public static abstract class ArrayAccumulator {
+        private final char separator;
+        protected int size;
+
+        protected ArrayAccumulator(char separator) {
+            this.separator = separator;
+        }
+
+        /**
+         * Add the values of str, split on the separator as String.split does (trailing empty values are dropped).
+         */
+        public void add(String str) {
+            if (str == null) {
+                return;
+            }
+            int length = str.length();
+            while (length > 0 && str.charAt(length - 1) == separator) {
+                length--;
+            }
+            if (length == 0 && !str.isEmpty()) {
+                return;
+            }
+            int start = 0;
+            while (true) {
+                int end = str.indexOf(separator, start);
+                if (end == -1 || end >= length) {
+                    add(str, start, length);
+                    return;
+                }
+                add(str, start, end);
+                start = end + 1;
+            }
+        }
+
+        protected abstract void add(String str, int start, int end);
+
+        /**
+         * Append the collected values to the ones of the glob (its default).
+         */
+        public abstract void set(MutableGlob glob);
+    }
+
+    public static class StringArrayAccumulator extends ArrayAccumulator {
+        private final StringArrayField field;
+        private String[] values = new String[4];
+
+        public StringArrayAccumulator(StringArrayField field, char separator) {
+            super(separator);
+            this.field = field;
+        }
+
+        protected void add(String str, int start, int end) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = str.substring(start, end);
+        }
+
+        public void set(MutableGlob glob) {
+            String[] actual = glob.get(field);
+            String[] newValue = actual == null ? Arrays.copyOf(values, size) : Arrays.copyOf(actual, actual.length + size);
+            if (actual != null) {
+                System.arraycopy(values, 0, newValue, actual.length, size);
+            }
+            glob.set(field, newValue);
+        }
+    }
+
+    public static class LongArrayAccumulator extends ArrayAccumulator {
+        private final LongArrayField field;
+        private long[] values = new long[4];
+
+        public LongArrayAccumulator(LongArrayField field, char separator) {
+            super(separator);
+            this.field = field;
+        }
+
+        protected void add(String str, int start, int end) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = Long.parseLong(str, start, end, 10);
+        }
+
+        public void set(MutableGlob glob) {
+            long[] actual = glob.get(field);
+            long[] newValue = actual == null ? Arrays.copyOf(values, size) : Arrays.copyOf(actual, actual.length + size);
+            if (actual != null) {
+                System.arraycopy(values, 0, newValue, actual.length, size);
+            }
+            glob.set(field, newValue);
+        }
+    }
+
+    public static class IntegerArrayAccumulator extends ArrayAccumulator {
+        private final IntegerArrayField field;
+        private int[] values = new int[4];
+
+        public IntegerArrayAccumulator(IntegerArrayField field, char separator) {
+            super(separator);
+            this.field = field;
+        }
+
+        protected void add(String str, int start, int end) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = Integer.parseInt(str, start, end, 10);
+        }
+
+        public void set(MutableGlob glob) {
+            int[] actual = glob.get(field);
+            int[] newValue = actual == null ? Arrays.copyOf(values, size) : Arrays.copyOf(actual, actual.length + size);
+            if (actual != null) {
+                System.arraycopy(values, 0, newValue, actual.length, size);
+            }
+            glob.set(field, newValue);
+        }
+    }
+
+    public static class DoubleArrayAccumulator extends ArrayAccumulator {
+        private final DoubleArrayField field;
+        private double[] values = new double[4];
+
+        public DoubleArrayAccumulator(DoubleArrayField field, char separator) {
+            super(separator);
+            this.field = field;
+        }
+
+        protected void add(String str, int start, int end) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = Double.parseDouble(str.substring(start, end));
+        }
+
+        public void set(MutableGlob glob) {
+            double[] actual = glob.get(field);
+            double[] newValue = actual == null ? Arrays.copyOf(values, size) : Arrays.copyOf(actual, actual.length + size);
+            if (actual != null) {
+                System.arraycopy(values, 0, newValue, actual.length, size);
+            }
+            glob.set(field, newValue);
+        }
+    }
+
+    public static class BooleanArrayAccumulator extends ArrayAccumulator {
+        private final BooleanArrayField field;
+        private boolean[] values = new boolean[4];
+
+        public BooleanArrayAccumulator(BooleanArrayField field, char separator) {
+            super(separator);
+            this.field = field;
+        }
+
+        protected void add(String str, int start, int end) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = end - start == 4 && str.regionMatches(true, start, "true", 0, 4);
+        }
+
+        public void set(MutableGlob glob) {
+            boolean[] actual = glob.get(field);
+            boolean[] newValue = actual == null ? Arrays.copyOf(values, size) : Arrays.copyOf(actual, actual.length + size);
+            if (actual != null) {
+                System.arraycopy(values, 0, newValue, actual.length, size);
+            }
+            glob.set(field, newValue);
+        }
+    }
+
     public static class ToStringConverter implements FromStringConverter {
         final StringField field;
 
@@ -309,6 +690,34 @@ public class GlobHttpUtils {
         }
     }
 
+    public static class ToDoubleConverter implements FromStringConverter {
+        final DoubleField field;
+
+        public ToDoubleConverter(DoubleField field) {
+            this.field = field;
+        }
+
+        public void convert(MutableGlob glob, String str) {
+            if (str != null) {
+                glob.set(field, Double.parseDouble(str));
+            }
+        }
+    }
+
+    public static class ToBigDecimalConverter implements FromStringConverter {
+        final BigDecimalField field;
+
+        public ToBigDecimalConverter(BigDecimalField field) {
+            this.field = field;
+        }
+
+        public void convert(MutableGlob glob, String str) {
+            if (str != null) {
+                glob.set(field, new BigDecimal(str));
+            }
+        }
+    }
+
     public static class ToStringArrayConverter implements FromStringConverter {
         final StringArrayField field;
         private final String arraySeparator;
@@ -367,4 +776,76 @@ public class GlobHttpUtils {
         }
     }
 
+    public static class ToIntegerArrayConverter implements FromStringConverter {
+        final IntegerArrayField field;
+        private final String arraySeparator;
+
+        public ToIntegerArrayConverter(IntegerArrayField field, String arraySeparator) {
+            this.field = field;
+            this.arraySeparator = arraySeparator;
+        }
+
+        public void convert(MutableGlob glob, String str) {
+            if (str != null) {
+                String[] data = split(str, arraySeparator);
+                int[] actual = glob.get(field);
+                int[] newValue = actual == null ? new int[data.length] : Arrays.copyOf(actual, actual.length + data.length);
+                int start = actual == null ? 0 : actual.length;
+                for (int i = 0; i < data.length; i++) {
+                    newValue[start + i] = Integer.parseInt(data[i]);
+                }
+                glob.set(field, newValue);
+            }
+        }
+    }
+
+    public static class ToDoubleArrayConverter implements FromStringConverter {
+        final DoubleArrayField field;
+        private final String arraySeparator;
+
+        public ToDoubleArrayConverter(DoubleArrayField field, String arraySeparator) {
+            this.field = field;
+            this.arraySeparator = arraySeparator;
+        }
+
+        public void convert(MutableGlob glob, String str) {
+            if (str != null) {
+                String[] data = split(str, arraySeparator);
+                double[] actual = glob.get(field);
+                double[] newValue = actual == null ? new double[data.length] : Arrays.copyOf(actual, actual.length + data.length);
+                int start = actual == null ? 0 : actual.length;
+                for (int i = 0; i < data.length; i++) {
+                    newValue[start + i] = Double.parseDouble(data[i]);
+                }
+                glob.set(field, newValue);
+            }
+        }
+    }
+
+    public static class ToBooleanArrayConverter implements FromStringConverter {
+        final BooleanArrayField field;
+        private final String arraySeparator;
+
+        public ToBooleanArrayConverter(BooleanArrayField field, String arraySeparator) {
+            this.field = field;
+            this.arraySeparator = arraySeparator;
+        }
+
+        public void convert(MutableGlob glob, String str) {
+            if (str != null) {
+                String[] data = split(str, arraySeparator);
+                boolean[] actual = glob.get(field);
+                boolean[] newValue = actual == null ? new boolean[data.length] : Arrays.copyOf(actual, actual.length + data.length);
+                int start = actual == null ? 0 : actual.length;
+                for (int i = 0; i < data.length; i++) {
+                    newValue[start + i] = Boolean.parseBoolean(data[i]);
+                }
+                glob.set(field, newValue);
+            }
+        }
+    }
+
+    private static String[] split(String str, String arraySeparator) {
+        return arraySeparator != null ? str.split(arraySeparator) : new String[]{str};
+    }
 }
@@ -7,6 +7,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
 public interface HttpOperation {
+    int DEFAULT_RECEIVE_WINDOW = 256 * 1024;
+    Executor INLINE_EXECUTOR = Runnable::run;
 
     void withExecutor(Executor executor);
 
@@ -34,5 +36,48 @@ public interface HttpOperation {
         void push(String name, String value);
     }
 
+    /**
+     * @return the executor given by withExecutor, else INLINE_EXECUTOR. The server calls the handler of an operation
+     * without executor (see hasExecutor) on the one of its {@link ExecutionMode}.
+     */
     Executor getExecutor();
+
+    /**
+     * @return false if no executor was given to this operation: the server execution mode applies.
+     */
+    boolean hasExecutor();
+
+    /**
+     * @return the number of request body bytes that can be received and not yet consumed by the handler. Not
+     * applied to the bodies buffered for a handler called inline: it can not read them while they are received.
+     */
+    int getReceiveWindow();
+
+    /**
+     * @return true if the handler of a binary body is called on the first received buffer and reads the body while it
+     * is received. Ignored by the server when the handler is called inline: it would block the reactor.
+     */
+    boolean hasStreamedBody();
+
+    /**
+     * @return true if Glob array responses are sent without Content-Length (chunked for HTTP/1.1), the globs being
+     * encoded as the connection accepts data.
+     */
+    boolean hasChunkedResponse();
+
+    /**
+     * @return true if the Glob bodies and responses are also exchanged in the {@link GlobBinaryCodec} format, with
+     * the clients asking for it (Content-Type and Accept).
+     */
+    boolean hasBinaryFormat();
+
+    /**
+     * @return null if the JSON responses are never compressed.
+     */
+    ResponseCompression getResponseCompression();
+
+    /**
+     * @return {@link OperationPolicies#NONE} if none was given.
+     */
+    OperationPolicies getPolicies();
 }
@@ -3,11 +3,20 @@ package org.globsframework.http;
 import org.globsframework.core.model.Glob;
 
 import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
-public sealed interface HttpOutputData permits HttpOutputData.GlobArrayHttpOutputData, HttpOutputData.GlobHttpOutputData, HttpOutputData.KnownSizeStreamHttpOutputData {
+public sealed interface HttpOutputData permits HttpOutputData.GlobArrayHttpOutputData, HttpOutputData.GlobHttpOutputData, HttpOutputData.KnownSizeStreamHttpOutputData,
+        HttpOutputData.GlobStreamHttpOutputData {
 
     record SizedStream(InputStream stream, long size) {}
 
+    enum GlobStreamFormat {
+        JSON_ARRAY,
+        NDJSON
+    }
+
     static HttpOutputData asGlob(Glob glob) {
         return new GlobHttpOutputData(glob);
     }
@@ -20,6 +29,24 @@ public sealed interface HttpOutputData permits HttpOutputData.GlobArrayHttpOutpu
         return new KnownSizeStreamHttpOutputData(data, size);
     }
 
+    /**
+     * The globs are pulled on the executor of the operation as the connection accepts data and sent as a JSON
+     * array; the stream is closed once consumed or when the exchange ends. Pulling must not block for long if the
+     * operation is inline: the globs are then pulled from the I/O thread.
+     */
+    static HttpOutputData asGlobStream(Stream<Glob> globs) {
+        return new GlobStreamHttpOutputData(globs.iterator(), globs::close, GlobStreamFormat.JSON_ARRAY);
+    }
+
+    static HttpOutputData asNdJson(Stream<Glob> globs) {
+        return new GlobStreamHttpOutputData(globs.iterator(), globs::close, GlobStreamFormat.NDJSON);
+    }
+
+    static HttpOutputData asGlobIterator(Iterator<Glob> globs, GlobStreamFormat format) {
+        return new GlobStreamHttpOutputData(globs, () -> {
+        }, format);
+    }
+
     final class GlobHttpOutputData implements HttpOutputData {
         private final Glob glob;
 
@@ -57,4 +84,31 @@ public sealed interface HttpOutputData permits HttpOutputData.GlobArrayHttpOutpu
             return new SizedStream(data, size);
         }
     }
+
+    final class GlobStreamHttpOutputData implements HttpOutputData {
+        private final Iterator<Glob> globs;
+        private final Runnable onClose;
+        private final GlobStreamFormat format;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        public GlobStreamHttpOutputData(Iterator<Glob> globs, Runnable onClose, GlobStreamFormat format) {
+            this.globs = globs;
+            this.onClose = onClose;
+            this.format = format;
+        }
+
+        public Iterator<Glob> getGlobs() {
+            return globs;
+        }
+
+        public GlobStreamFormat getFormat() {
+            return format;
+        }
+
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                onClose.run();
+            }
+        }
+    }
 }
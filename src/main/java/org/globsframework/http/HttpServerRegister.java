@@ -6,6 +6,10 @@ import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
 import org.globsframework.core.metamodel.fields.StringField;
 import org.globsframework.core.model.Glob;
 import org.globsframework.core.utils.Strings;
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.metrics.HttpMetrics;
+import org.globsframework.http.metrics.model.MetricsSnapshot;
+import org.globsframework.http.openapi.model.GetOpenApiHeaderType;
 import org.globsframework.http.openapi.model.GetOpenApiParamType;
 import org.globsframework.http.openapi.model.GlobOpenApi;
 import org.globsframework.json.annottations.IsJsonContent;
@@ -22,11 +26,61 @@ public class HttpServerRegister {
     public final Map<String, Verb> verbMap = new LinkedHashMap<>();
     public final String serverInfo;
     public InterceptBuilder interceptBuilder = InterceptBuilder.NULL;
+    public ExecutionMode executionMode = ExecutionMode.INLINE;
+    public AdaptiveLimiter adaptiveLimiter;
+    public HttpMetrics metrics;
+    public AccessLog accessLog;
+    private volatile int routesVersion;
 
     public HttpServerRegister(String serverInfo) {
         this.serverInfo = serverInfo;
     }
 
+    /**
+     * Executor of the operations registered without one (see OperationInfo.withExecutor and OperationInfo.inline).
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Limiter shared by the operations that do not have their own (see OperationPolicies.withAdaptiveLimit).
+     */
+    public void setAdaptiveLimiter(AdaptiveLimiter adaptiveLimiter) {
+        this.adaptiveLimiter = adaptiveLimiter;
+    }
+
+    /**
+     * Record the latencies, sizes and status codes of every operation (see {@link HttpMetrics}).
+     */
+    public HttpMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new HttpMetrics(serverInfo);
+        }
+        return metrics;
+    }
+
+    /**
+     * Enable the metrics and answer GET on url with their snapshot (a {@link MetricsSnapshot}).
+     */
+    public OperationInfo registerMetrics(String url) {
+        HttpMetrics httpMetrics = enableMetrics();
+        return register(url, null)
+                .get(null, new HttpTreatment() {
+                    public CompletableFuture<Glob> consume(Glob body, Glob pathParameters, Glob queryParameters) {
+                        return CompletableFuture.completedFuture(httpMetrics.snapshot());
+                    }
+                })
+                .declareReturnType(MetricsSnapshot.TYPE);
+    }
+
+    /**
+     * Log every exchange of the server (see {@link AccessLog}); the log is not closed with the server.
+     */
+    public void setAccessLog(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
     public void addRequestDecorator(InterceptBuilder interceptBuilder) {
         if (this.interceptBuilder == InterceptBuilder.NULL) {
             this.interceptBuilder = interceptBuilder;
@@ -47,15 +101,24 @@ public class HttpServerRegister {
         return current;
     }
 
+    /**
+     * Incremented each time an operation is registered.
+     */
+    public int getRoutesVersion() {
+        return routesVersion;
+    }
+
+    /**
+     * The doc is served from the JSON encoded when it is built (see GlobOpenApi.getEncodedDoc), with an ETag.
+     */
     public void registerOpenApi(GlobOpenApi openApiDoc) {
         register("/api", null)
-                .get(GetOpenApiParamType.TYPE, new HttpTreatment() {
-                    public CompletableFuture<Glob> consume(Glob body, Glob pathParameters, Glob queryParameters) throws Exception {
+                .get(GetOpenApiParamType.TYPE, GetOpenApiHeaderType.TYPE, new HttpTreatmentWithHeader() {
+                    public CompletableFuture<Glob> consume(Glob body, Glob pathParameters, Glob queryParameters, Glob header) throws Exception {
                         String scope = queryParameters == null ? "" : queryParameters.get(GetOpenApiParamType.scope);
-                        if (Strings.isNullOrEmpty(scope)) {
-                            return CompletableFuture.completedFuture(openApiDoc.getOpenApiDoc());
-                        }
-                        return CompletableFuture.completedFuture(openApiDoc.createOpenApiDocByTags(scope));
+                        GlobOpenApi.EncodedDoc doc = openApiDoc.getEncodedDoc(Strings.isNullOrEmpty(scope) ? null : scope);
+                        return CompletableFuture.completedFuture(header == null ? doc.toHttpContent(null, null) :
+                                doc.toHttpContent(header.get(GetOpenApiHeaderType.ifNoneMatch), header.get(GetOpenApiHeaderType.acceptEncoding)));
                     }
                 }); //.declareReturnType(OpenApiType.TYPE);
     }
@@ -85,6 +148,49 @@ public class HttpServerRegister {
 
         OperationInfo withExecutor(Executor executor);
 
+        /**
+         * Call the handler on the reactor thread whatever the server execution mode: only for handlers that
+         * never block.
+         */
+        OperationInfo inline();
+
+        OperationInfo withReceiveWindow(int bytes);
+
+        /**
+         * For binary bodies: call the handler as soon as the body starts to arrive, its stream being fed while
+         * it reads. Needs an executor (see withExecutor), the handler blocking on the stream.
+         */
+        OperationInfo withStreamedBody(boolean streamedBody);
+
+        /**
+         * Send Glob array responses as they are encoded, without Content-Length: the first bytes leave before the
+         * whole array is serialized and the response is never fully held in memory.
+         */
+        OperationInfo withChunkedResponse(boolean chunkedResponse);
+
+        /**
+         * Also accept Glob bodies and send Glob responses in the binary format of {@link GlobBinaryCodec}, if the
+         * request Content-Type or Accept is {@link GlobBinaryCodec#MIME_TYPE}: no JSON text to parse and fewer bytes.
+         * The types must be serializable by globs-bin-serialisation.
+         */
+        OperationInfo withBinaryFormat(boolean binaryFormat);
+
+        /**
+         * Compress the JSON responses of at least minSize bytes with gzip or deflate, as accepted by the client.
+         * <p>
+         * The chunked Glob arrays (withChunkedResponse) and the Glob streams are sent uncompressed: their size is
+         * not known when the response starts, and they are sent as they are encoded.
+         *
+         * @param level Deflater level (1 to 9, -1 for the default)
+         */
+        OperationInfo withCompression(int minSize, int level);
+
+        /**
+         * Bulkhead, adaptive limit, timeout, coalescing and method override of this operation: see
+         * {@link OperationPolicies}.
+         */
+        OperationInfo withPolicies(OperationPolicies policies);
+
         void addHeader(String name, String value);
     }
 
@@ -156,80 +262,80 @@ public class HttpServerRegister {
 
         public OperationInfo get(GlobType queryParameters, HttpTreatment httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.get, null, queryParameters, interceptBuilder.create(httpTreatment));
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo get(GlobType queryParameters, GlobType headerType, HttpTreatmentWithHeader httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.get, null, queryParameters, interceptBuilder.create(httpTreatment));
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo getBin(GlobType queryParameters, GlobType headerType, HttpDataTreatmentWithHeader httpTreatment) {
             DefaultHttpDataOperation operation = new DefaultHttpDataOperation(HttpOp.get, null, queryParameters, httpTreatment);
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo post(GlobType bodyParam, GlobType queryParameters, HttpTreatment httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.post, bodyParam, queryParameters, interceptBuilder.create(httpTreatment));
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo post(GlobType bodyParam, GlobType paramType, GlobType headerType, HttpTreatmentWithHeader httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.post, bodyParam, paramType, interceptBuilder.create(httpTreatment));
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo postBin(GlobType queryParameters, GlobType headerType, HttpDataTreatmentWithHeader httpTreatment) {
             MutableHttpDataOperation operation = new DefaultHttpDataOperation(HttpOp.post, null, queryParameters, httpTreatment);
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo put(GlobType bodyParam, GlobType queryParameters, HttpTreatment httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.put, bodyParam, queryParameters, interceptBuilder.create(httpTreatment));
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo put(GlobType bodyParam, GlobType queryParameters, GlobType headerType, HttpTreatmentWithHeader httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.put, bodyParam, queryParameters, interceptBuilder.create(httpTreatment));
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo patch(GlobType bodyParam, GlobType queryParameters, HttpTreatment httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.patch, bodyParam, queryParameters, interceptBuilder.create(httpTreatment));
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo patch(GlobType bodyParam, GlobType queryParameters, GlobType headerType, HttpTreatmentWithHeader httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.patch, bodyParam, queryParameters, interceptBuilder.create(httpTreatment));
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo delete(GlobType queryParameters, HttpTreatment httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.delete, null, queryParameters, interceptBuilder.create(httpTreatment));
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
         public OperationInfo delete(GlobType queryParameters, GlobType headerType, HttpTreatmentWithHeader httpTreatment) {
             DefaultHttpOperation operation = new DefaultHttpOperation(HttpOp.delete, null, queryParameters, interceptBuilder.create(httpTreatment));
             operation.withHeader(headerType);
-            operations.add(operation);
+            addOperation(operation);
             return new DefaultOperationInfo(operation);
         }
 
@@ -237,6 +343,11 @@ public class HttpServerRegister {
             headers.put(name, value);
         }
 
+        private void addOperation(HttpOperation operation) {
+            operations.add(operation);
+            routesVersion++;
+        }
+
         public HttpReceiver complete() {
             DefaultHttpReceiver defaultHttpReceiver = new DefaultHttpReceiver(url, pathParameters, operations.toArray(new HttpOperation[0]));
             headers.forEach(defaultHttpReceiver::addHeader);
@@ -280,6 +391,41 @@ public class HttpServerRegister {
                 return this;
             }
 
+            public OperationInfo inline() {
+                operation.withExecutor(HttpOperation.INLINE_EXECUTOR);
+                return this;
+            }
+
+            public OperationInfo withReceiveWindow(int bytes) {
+                operation.withReceiveWindow(bytes);
+                return this;
+            }
+
+            public OperationInfo withStreamedBody(boolean streamedBody) {
+                operation.withStreamedBody(streamedBody);
+                return this;
+            }
+
+            public OperationInfo withChunkedResponse(boolean chunkedResponse) {
+                operation.withChunkedResponse(chunkedResponse);
+                return this;
+            }
+
+            public OperationInfo withBinaryFormat(boolean binaryFormat) {
+                operation.withBinaryFormat(binaryFormat);
+                return this;
+            }
+
+            public OperationInfo withCompression(int minSize, int level) {
+                operation.withResponseCompression(new ResponseCompression(minSize, level));
+                return this;
+            }
+
+            public OperationInfo withPolicies(OperationPolicies policies) {
+                operation.withPolicies(policies);
+                return this;
+            }
+
             public void addHeader(String name, String value) {
                 operation.addHeader(name, value);
             }
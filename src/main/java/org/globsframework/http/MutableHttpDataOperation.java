@@ -20,4 +20,16 @@ public interface MutableHttpDataOperation extends HttpOperation {
     void withSensitiveData(boolean hasSensitiveData);
 
     void addHeader(String name, String value);
+
+    void withReceiveWindow(int bytes);
+
+    void withStreamedBody(boolean streamedBody);
+
+    void withChunkedResponse(boolean chunkedResponse);
+
+    void withBinaryFormat(boolean binaryFormat);
+
+    void withResponseCompression(ResponseCompression responseCompression);
+
+    void withPolicies(OperationPolicies policies);
 }
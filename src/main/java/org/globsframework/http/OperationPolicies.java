@@ -0,0 +1,64 @@
+package org.globsframework.http;
+
+/**
+ * How an operation admits and completes its requests, each policy being optional (see
+ * HttpServerRegister.OperationInfo.withPolicies).
+ * <p>
+ * The bulkhead, limiter and coalescing hold the state of the requests in progress: an instance given to several
+ * operations limits them together.
+ *
+ * @param bulkhead        null if the concurrency of the handler is not limited
+ * @param adaptiveLimiter null if the requests are not limited by the latency of the handler, or only by the limiter
+ *                        of the server (see HttpServerRegister.setAdaptiveLimiter)
+ * @param timeout         the time, in milliseconds, given to the handler to complete a request, 0 if unlimited (the
+ *                        client can still set a deadline, see {@link RequestDeadline})
+ * @param coalescing      null if the identical GET requests are not coalesced
+ * @param methodOverride  true if the query of this GET or DELETE is also accepted as the body of a POST with the
+ *                        {@link GlobHttpUtils#METHOD_OVERRIDE_HEADER}
+ */
+public record OperationPolicies(Bulkhead bulkhead, AdaptiveLimiter adaptiveLimiter, long timeout,
+                                Coalescing coalescing, boolean methodOverride) {
+    public static final OperationPolicies NONE = new OperationPolicies(null, null, 0, null, false);
+
+    /**
+     * At most maxConcurrent requests in the handler, at most maxQueued waiting for one of them to complete:
+     * the others get a 503 with a Retry-After of retryAfterSeconds. See {@link Bulkhead} for the gauges.
+     */
+    public OperationPolicies withBulkhead(int maxConcurrent, int maxQueued, int retryAfterSeconds) {
+        return new OperationPolicies(new Bulkhead(maxConcurrent, maxQueued, retryAfterSeconds), adaptiveLimiter,
+                timeout, coalescing, methodOverride);
+    }
+
+    /**
+     * Limit the concurrent requests to a value adjusted from the handler latency, starting at initialLimit: see
+     * {@link AdaptiveLimiter}. The requests above it get a 503 before their body is read.
+     */
+    public OperationPolicies withAdaptiveLimit(int initialLimit, int maxLimit) {
+        return new OperationPolicies(bulkhead, new AdaptiveLimiter(initialLimit, 1, maxLimit), timeout, coalescing,
+                methodOverride);
+    }
+
+    /**
+     * Complete the requests with a 504 if the handler did not answer within timeoutInMs (from the reception
+     * of the request), cancelling its future. See {@link RequestDeadline}.
+     */
+    public OperationPolicies withTimeout(long timeoutInMs) {
+        return new OperationPolicies(bulkhead, adaptiveLimiter, timeoutInMs, coalescing, methodOverride);
+    }
+
+    /**
+     * Call the handler once for the identical GET requests received while it runs, and send its response to all
+     * of them. Identical: same path and query string and same values of the keyHeaders. See {@link Coalescing}.
+     */
+    public OperationPolicies withCoalescing(String... keyHeaders) {
+        return new OperationPolicies(bulkhead, adaptiveLimiter, timeout, new Coalescing(keyHeaders), methodOverride);
+    }
+
+    /**
+     * For a GET or DELETE: also accept its query as the form body of a POST with the
+     * {@link GlobHttpUtils#METHOD_OVERRIDE_HEADER}, sent by the clients when the url would be too long.
+     */
+    public OperationPolicies withMethodOverride(boolean methodOverride) {
+        return new OperationPolicies(bulkhead, adaptiveLimiter, timeout, coalescing, methodOverride);
+    }
+}
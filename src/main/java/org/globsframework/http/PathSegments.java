@@ -0,0 +1,123 @@
+package org.globsframework.http;
+
+import java.util.Arrays;
+
+/**
+ * The segments of a request path, kept as offsets over the original string so that routing does not allocate
+ * a String per segment: only the segments bound to a {@code {param}} field are materialised, by the
+ * {@link UrlMatcher}.
+ * <p>
+ * The segmentation is the one of {@code path.substring(1, queryStart).split("/")}: the leading '/' is dropped,
+ * inner and leading empty segments are kept, trailing ones are removed, and an empty path gives one empty
+ * segment.
+ * <p>
+ * An instance is mutable and meant to be reused by {@link #parse(String)}: it must not be kept once the
+ * request has been dispatched.
+ */
+public final class PathSegments {
+    private String path;
+    private int[] bounds = new int[16]; // start, end of each segment
+    private int size;
+    private int queryStart;
+
+    public static PathSegments of(String path) {
+        PathSegments segments = new PathSegments();
+        segments.parse(path);
+        return segments;
+    }
+
+    public PathSegments parse(String path) {
+        this.path = path;
+        int length = path.length();
+        int query = path.indexOf('?');
+        queryStart = query == -1 ? -1 : query + 1;
+        int end = query == -1 ? length : query;
+        int start = Math.min(1, end); // remove first /
+        size = 0;
+        if (start == end) {
+            add(start, end);
+            return this;
+        }
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == '/') {
+                add(segmentStart, i);
+                segmentStart = i + 1;
+            }
+        }
+        add(segmentStart, end);
+        while (size > 0 && bounds[2 * size - 1] == bounds[2 * size - 2]) {
+            size--;
+        }
+        return this;
+    }
+
+    private void add(int start, int end) {
+        if (2 * size + 1 >= bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[2 * size] = start;
+        bounds[2 * size + 1] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int length(int index) {
+        return bounds[2 * index + 1] - bounds[2 * index];
+    }
+
+    public String segment(int index) {
+        return path.substring(bounds[2 * index], bounds[2 * index + 1]);
+    }
+
+    /**
+     * Same value as {@code segment(index).hashCode()}, computed without extracting the segment.
+     */
+    public int segmentHash(int index) {
+        int h = 0;
+        for (int i = bounds[2 * index], end = bounds[2 * index + 1]; i < end; i++) {
+            h = 31 * h + path.charAt(i);
+        }
+        return h;
+    }
+
+    public boolean segmentEquals(int index, String value) {
+        int start = bounds[2 * index];
+        int length = bounds[2 * index + 1] - start;
+        return value.length() == length && path.regionMatches(start, value, 0, length);
+    }
+
+    public String[] toArray(int from) {
+        String[] segments = new String[Math.max(0, size - from)];
+        for (int i = from; i < size; i++) {
+            segments[i - from] = segment(i);
+        }
+        return segments;
+    }
+
+    public String[] toArray() {
+        return toArray(0);
+    }
+
+    public boolean hasQuery() {
+        return queryStart != -1;
+    }
+
+    /**
+     * @return the raw (still url encoded) query string, or null if the path has no '?'
+     */
+    public String query() {
+        return queryStart == -1 ? null : path.substring(queryStart);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String toString() {
+        return String.join("/", toArray());
+    }
+}
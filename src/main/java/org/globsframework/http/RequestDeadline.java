@@ -0,0 +1,67 @@
+package org.globsframework.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time left to handle a request: the earliest of the operation timeout (OperationPolicies.withTimeout) and of the
+ * {@link #HEADER} sent by the client. Past it, the request is completed with a 504 and the future returned by the
+ * handler is cancelled.
+ * <p>
+ * Available through {@link #current()} while the handler is called: a handler completing its future on another
+ * thread must keep it to pass the budget on to its downstream calls (see {@link #toHeaderValue()}).
+ */
+public final class RequestDeadline {
+    /**
+     * Deadline of the request, in milliseconds since the epoch.
+     */
+    public static final String HEADER = "X-Request-Deadline";
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    private final long deadlineNanos;
+
+    public RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return the deadline of the request being handled by this thread, or null if it has none.
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the previous deadline of the thread, to be given back to {@link #restore}.
+     */
+    public static RequestDeadline enter(RequestDeadline deadline) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return previous;
+    }
+
+    public static void restore(RequestDeadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public long remainingMillis() {
+        return remaining(TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return the value of {@link #HEADER} to send to a downstream server.
+     */
+    public String toHeaderValue() {
+        return Long.toString(System.currentTimeMillis() + remainingMillis());
+    }
+}
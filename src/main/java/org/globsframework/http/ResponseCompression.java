@@ -0,0 +1,75 @@
+package org.globsframework.http;
+
+import org.globsframework.http.streams.CompressingOutputStream;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compression of the JSON responses of an operation, except the chunked and streamed ones.
+ *
+ * @param minSize responses smaller than that are sent uncompressed
+ * @param level   Deflater level, from 1 (fast) to 9 (small), or -1 for the zlib default
+ */
+public record ResponseCompression(int minSize, int level) {
+    private static final LongAdder UNCOMPRESSED_BYTES = new LongAdder();
+    private static final LongAdder COMPRESSED_BYTES = new LongAdder();
+
+    /**
+     * @return the preferred encoding among the ones we support (gzip, then deflate), or null if the client does
+     * not accept any of them.
+     */
+    public static CompressingOutputStream.Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean wildcard = false;
+        for (String element : acceptEncoding.split(",")) {
+            int semicolon = element.indexOf(';');
+            String coding = (semicolon == -1 ? element : element.substring(0, semicolon)).trim();
+            boolean accepted = semicolon == -1 || !isZeroQuality(element.substring(semicolon + 1));
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = accepted;
+            } else if (coding.equalsIgnoreCase("deflate")) {
+                deflate = accepted;
+            } else if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        if (gzip != null ? gzip : wildcard) {
+            return CompressingOutputStream.Encoding.GZIP;
+        }
+        return (deflate != null ? deflate : wildcard) ? CompressingOutputStream.Encoding.DEFLATE : null;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public static void compressed(long uncompressedBytes, long compressedBytes) {
+        UNCOMPRESSED_BYTES.add(uncompressedBytes);
+        COMPRESSED_BYTES.add(compressedBytes);
+    }
+
+    /**
+     * @return the size, before compression, of all the compressed responses.
+     */
+    public static long uncompressedBytes() {
+        return UNCOMPRESSED_BYTES.sum();
+    }
+
+    public static long compressedBytes() {
+        return COMPRESSED_BYTES.sum();
+    }
+}
@@ -6,5 +6,13 @@ public interface UrlMatcher {
 
     Glob parse(String[] split);
 
+    /**
+     * Same as {@link #parse(String[])} on the segments of a request path; only the segments bound to a field
+     * need to be extracted.
+     */
+    default Glob parse(PathSegments segments) {
+        return parse(segments.toArray());
+    }
+
     boolean withWildCard();
 }
@@ -0,0 +1,218 @@
+package org.globsframework.http.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log of a server: one line per exchange, see HttpServerRegister.setAccessLog.
+ * <p>
+ * The exchanges are recorded in a ring of preallocated entries (a slot is claimed with a CAS, no lock) and
+ * formatted and written in batches by a background thread: logging never blocks the reactor nor the handler
+ * threads. If the writer does not keep up and the ring is full, the records are dropped (see {@link #dropped()}).
+ */
+public class AccessLog implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final Entry[] entries;
+    private final int mask;
+    private final AccessLogFormat format;
+    private final Writer writer;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainer;
+    // next sequence to write, only advanced by the drainer
+    private volatile long consumed;
+    private volatile boolean running = true;
+
+    public AccessLog(Path file) throws IOException {
+        this(file, AccessLogFormat.DEFAULT, DEFAULT_CAPACITY);
+    }
+
+    public AccessLog(Path file, AccessLogFormat format, int capacity) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND), format, capacity);
+    }
+
+    /**
+     * @param writer written and closed by the background thread only.
+     * @param capacity rounded up to a power of two.
+     */
+    public AccessLog(Writer writer, AccessLogFormat format, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+        }
+        this.mask = size - 1;
+        this.format = format;
+        this.writer = writer;
+        this.drainer = new Thread(this::drain, "globs-http-access-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Record an exchange, without waiting.
+     *
+     * @return false if the record was dropped: the ring is full or the log is closed.
+     */
+    public boolean log(String route, String verb, int status, long latencyNanos, long bytesIn, long bytesOut,
+                       SocketAddress remoteAddress) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (!running || sequence - consumed >= entries.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        Entry entry = entries[(int) sequence & mask];
+        entry.timestamp = System.currentTimeMillis();
+        entry.route = route;
+        entry.verb = verb;
+        entry.status = status;
+        entry.latencyNanos = latencyNanos;
+        entry.bytesIn = bytesIn;
+        entry.bytesOut = bytesOut;
+        entry.remoteAddress = remoteAddress;
+        entry.published = sequence;
+        return true;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            boolean stopping = !running;
+            long sequence = consumed;
+            int written = 0;
+            Entry entry;
+            while ((entry = entries[(int) sequence & mask]).published == sequence) {
+                line.setLength(0);
+                try {
+                    format.format(entry, line);
+                    line.append('\n');
+                    writer.append(line);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.error("Fail to write access log", e);
+                }
+                entry.route = null;
+                entry.remoteAddress = null;
+                consumed = ++sequence;
+                written++;
+            }
+            if (written > 0) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    LOGGER.error("Fail to write access log", e);
+                }
+            } else if (stopping && sequence == claimed.get()) {
+                break;
+            } else {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.error("Fail to close access log", e);
+        }
+    }
+
+    /**
+     * Write the records logged so far and close the writer.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One exchange. Reused once formatted: not to be kept by the format.
+     */
+    public static final class Entry {
+        private volatile long published = -1;
+        private long timestamp;
+        private String route;
+        private String verb;
+        private int status;
+        private long latencyNanos;
+        private long bytesIn;
+        private long bytesOut;
+        private SocketAddress remoteAddress;
+
+        private Entry() {
+        }
+
+        /**
+         * @return the end of the exchange, in milliseconds since the epoch.
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the url template of the operation.
+         */
+        public String route() {
+            return route;
+        }
+
+        public String verb() {
+            return verb;
+        }
+
+        /**
+         * @return 0 if no response was sent (aborted exchange).
+         */
+        public int status() {
+            return status;
+        }
+
+        public long latencyNanos() {
+            return latencyNanos;
+        }
+
+        public long bytesIn() {
+            return bytesIn;
+        }
+
+        public long bytesOut() {
+            return bytesOut;
+        }
+
+        /**
+         * @return the ip address of the client, or null if unknown.
+         */
+        public String remoteAddress() {
+            if (remoteAddress instanceof InetSocketAddress inetAddress) {
+                return inetAddress.getAddress() != null ? inetAddress.getAddress().getHostAddress() : inetAddress.getHostString();
+            }
+            return remoteAddress != null ? remoteAddress.toString() : null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.globsframework.http.accesslog;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Format of an access log line, called by the background thread of the {@link AccessLog}.
+ */
+public interface AccessLogFormat {
+    AccessLogFormat DEFAULT = pattern("%t %a \"%m %r\" %s %D %i %o");
+
+    void format(AccessLog.Entry entry, StringBuilder line);
+
+    /**
+     * Format from a pattern, as the common log formats:
+     * <ul>
+     *     <li>%t the time of the end of the exchange (ISO-8601, UTC)</li>
+     *     <li>%a the ip address of the client</li>
+     *     <li>%m the verb</li>
+     *     <li>%r the url template of the operation</li>
+     *     <li>%s the status code</li>
+     *     <li>%D the latency in microseconds, %T in milliseconds</li>
+     *     <li>%i the received bytes, %o the sent bytes</li>
+     *     <li>%% a '%'</li>
+     * </ul>
+     * An unknown value is written as '-'.
+     */
+    static AccessLogFormat pattern(String pattern) {
+        List<AccessLogFormat> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%' || i + 1 == pattern.length()) {
+                literal.append(c);
+                continue;
+            }
+            char directive = pattern.charAt(++i);
+            if (directive == '%') {
+                literal.append('%');
+                continue;
+            }
+            if (!literal.isEmpty()) {
+                String text = literal.toString();
+                parts.add((entry, line) -> line.append(text));
+                literal.setLength(0);
+            }
+            parts.add(switch (directive) {
+                case 't' -> (entry, line) -> DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.timestamp()), line);
+                case 'a' -> (entry, line) -> appendOrDash(line, entry.remoteAddress());
+                case 'm' -> (entry, line) -> appendOrDash(line, entry.verb());
+                case 'r' -> (entry, line) -> appendOrDash(line, entry.route());
+                case 's' -> (entry, line) -> {
+                    if (entry.status() == 0) {
+                        line.append('-');
+                    } else {
+                        line.append(entry.status());
+                    }
+                };
+                case 'D' -> (entry, line) -> line.append(TimeUnit.NANOSECONDS.toMicros(entry.latencyNanos()));
+                case 'T' -> (entry, line) -> line.append(TimeUnit.NANOSECONDS.toMillis(entry.latencyNanos()));
+                case 'i' -> (entry, line) -> line.append(entry.bytesIn());
+                case 'o' -> (entry, line) -> line.append(entry.bytesOut());
+                default -> throw new IllegalArgumentException("Unknown directive %" + directive + " in " + pattern);
+            });
+        }
+        if (!literal.isEmpty()) {
+            String text = literal.toString();
+            parts.add((entry, line) -> line.append(text));
+        }
+        AccessLogFormat[] formats = parts.toArray(AccessLogFormat[]::new);
+        return (entry, line) -> {
+            for (AccessLogFormat format : formats) {
+                format.format(entry, line);
+            }
+        };
+    }
+
+    private static void appendOrDash(StringBuilder line, String value) {
+        line.append(value != null ? value : "-");
+    }
+}
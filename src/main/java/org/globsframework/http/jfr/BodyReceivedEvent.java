@@ -0,0 +1,37 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.BodyReceived")
+@Label("Body Received")
+@Description("From the request headers to the end of the body (to its first buffer if the body is streamed)")
+public class BodyReceivedEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(BodyReceivedEvent.class);
+
+    @Label("Received")
+    @DataAmount
+    long bytes;
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static BodyReceivedEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        BodyReceivedEvent event = new BodyReceivedEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(String route, String verb, long bytes) {
+        this.route = route;
+        this.verb = verb;
+        this.bytes = bytes;
+        commit();
+    }
+}
@@ -0,0 +1,46 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.Exchange")
+@Label("Exchange")
+@Description("From the request headers to the last byte of the response written")
+public class ExchangeEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(ExchangeEvent.class);
+
+    @Label("Status")
+    int status;
+
+    @Label("Received")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Sent")
+    @DataAmount
+    long bytesOut;
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static ExchangeEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        ExchangeEvent event = new ExchangeEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(String route, String verb, int status, long bytesIn, long bytesOut) {
+        this.route = route;
+        this.verb = verb;
+        this.status = status;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        commit();
+    }
+}
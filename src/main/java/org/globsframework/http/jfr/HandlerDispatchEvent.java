@@ -0,0 +1,32 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.HandlerDispatch")
+@Label("Handler Dispatch")
+@Description("Wait of a received request for the executor and the bulkhead of its operation")
+public class HandlerDispatchEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(HandlerDispatchEvent.class);
+
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static HandlerDispatchEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        HandlerDispatchEvent event = new HandlerDispatchEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(String route, String verb) {
+        this.route = route;
+        this.verb = verb;
+        commit();
+    }
+}
@@ -0,0 +1,42 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.Handler")
+@Label("Handler")
+@Description("From the call of the handler to the completion of its future")
+public class HandlerEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(HandlerEvent.class);
+
+    @Label("Status")
+    int status;
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static HandlerEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        HandlerEvent event = new HandlerEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * The handler is complete, the response not yet sent: its status is given to {@link #complete}.
+     */
+    public void handlerDone() {
+        end();
+    }
+
+    public void complete(String route, String verb, int status) {
+        this.route = route;
+        this.verb = verb;
+        this.status = status;
+        commit();
+    }
+}
@@ -0,0 +1,26 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Phase of an HTTP exchange, recorded with Java Flight Recorder to correlate the latency of the requests with the
+ * GC pauses, safepoints, lock contention... of the same recording.
+ * <p>
+ * Disabled by default: enable them in the JFR settings (org.globsframework.http.*). The start method of each event
+ * checks its {@link jdk.jfr.EventType} first: when JFR is off or the event is disabled, it returns null without
+ * allocating the event.
+ */
+@Category({"Globs", "HTTP"})
+@Enabled(false)
+@StackTrace(false)
+abstract class HttpPhaseEvent extends Event {
+    @Label("Route")
+    String route;
+
+    @Label("Verb")
+    String verb;
+}
@@ -0,0 +1,41 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.JsonEncode")
+@Label("JSON Encode")
+@Description("Encoding (and compression) of a JSON response before it is sent")
+public class JsonEncodeEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(JsonEncodeEvent.class);
+
+    @Label("Encoded")
+    @DataAmount
+    long bytes;
+
+    @Label("Compressed")
+    boolean compressed;
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static JsonEncodeEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        JsonEncodeEvent event = new JsonEncodeEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(String route, String verb, long bytes, boolean compressed) {
+        this.route = route;
+        this.verb = verb;
+        this.bytes = bytes;
+        this.compressed = compressed;
+        commit();
+    }
+}
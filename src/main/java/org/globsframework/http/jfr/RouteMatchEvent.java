@@ -0,0 +1,35 @@
+package org.globsframework.http.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.globsframework.http.RouteMatch")
+@Label("Route Match")
+@Description("Search of the operation of a request and parsing of its query")
+public class RouteMatchEvent extends HttpPhaseEvent {
+    private static final EventType TYPE = EventType.getEventType(RouteMatchEvent.class);
+
+
+    /**
+     * @return null if the event is not recorded.
+     */
+    public static RouteMatchEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        RouteMatchEvent event = new RouteMatchEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param route null if no operation matches.
+     */
+    public void complete(String route, String method) {
+        this.route = route;
+        this.verb = method;
+        commit();
+    }
+}
@@ -0,0 +1,72 @@
+package org.globsframework.http.metrics;
+
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.HttpOp;
+import org.globsframework.http.metrics.model.MetricsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the operations of a server, see HttpServerRegister.enableMetrics.
+ */
+public class HttpMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpMetrics.class);
+    private final String serverInfo;
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final LongAdder unmatched = new LongAdder();
+
+    public HttpMetrics(String serverInfo) {
+        this.serverInfo = serverInfo;
+    }
+
+    public RouteMetrics route(String url, HttpOp verb) {
+        return routes.computeIfAbsent(verb.name() + " " + url, key -> new RouteMetrics(url, verb));
+    }
+
+    public void unmatched() {
+        unmatched.increment();
+    }
+
+    public long unmatchedCount() {
+        return unmatched.sum();
+    }
+
+    public Glob snapshot() {
+        List<RouteMetrics> sorted = new ArrayList<>(routes.values());
+        sorted.sort((r1, r2) -> {
+            int compare = r1.getUrl().compareTo(r2.getUrl());
+            return compare != 0 ? compare : r1.getVerb().compareTo(r2.getVerb());
+        });
+        Glob[] snapshots = new Glob[sorted.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = sorted.get(i).snapshot();
+        }
+        return MetricsSnapshot.TYPE.instantiate()
+                .set(MetricsSnapshot.serverName, serverInfo)
+                .set(MetricsSnapshot.unmatched, unmatched.sum())
+                .set(MetricsSnapshot.routes, snapshots);
+    }
+
+    /**
+     * Give a snapshot to the exporter every period, on the given scheduler; cancel the returned future to stop.
+     */
+    public ScheduledFuture<?> scheduleExport(MetricsExporter exporter, ScheduledExecutorService scheduler,
+                                             long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(() -> {
+            try {
+                exporter.export(snapshot());
+            } catch (RuntimeException e) {
+                LOGGER.error(serverInfo + " : fail to export metrics", e);
+            }
+        }, period, period, unit);
+    }
+}
@@ -0,0 +1,15 @@
+package org.globsframework.http.metrics;
+
+import org.globsframework.core.model.Glob;
+
+/**
+ * Receiver of the metrics of a server (to log them, push them to a monitoring system...), see
+ * {@link HttpMetrics#scheduleExport}.
+ */
+public interface MetricsExporter {
+
+    /**
+     * @param snapshot a {@link org.globsframework.http.metrics.model.MetricsSnapshot}.
+     */
+    void export(Glob snapshot);
+}
@@ -0,0 +1,129 @@
+package org.globsframework.http.metrics;
+
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.HttpOp;
+import org.globsframework.http.metrics.model.RouteSnapshot;
+import org.globsframework.http.metrics.model.StatusCount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of one operation (url template and verb), recorded by the request handler. Thread safe.
+ */
+public class RouteMetrics {
+    private static final int MAX_STATUS = 600;
+    private final String url;
+    private final HttpOp verb;
+    private final Histogram queueWait = new Histogram();
+    private final Histogram handler = new Histogram();
+    private final Histogram serialization = new Histogram();
+    private final Histogram total = new Histogram();
+    private final Histogram bytesIn = new Histogram();
+    private final Histogram bytesOut = new Histogram();
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RouteMetrics(String url, HttpOp verb) {
+        this.url = url;
+        this.verb = verb;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public HttpOp getVerb() {
+        return verb;
+    }
+
+    /**
+     * An admitted request: in flight until {@link #completed}.
+     */
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    public void completed(long totalNanos, long receivedBytes, long sentBytes) {
+        inFlight.decrementAndGet();
+        total.record(TimeUnit.NANOSECONDS.toMicros(totalNanos));
+        bytesIn.record(receivedBytes);
+        bytesOut.record(sentBytes);
+    }
+
+    public void status(int statusCode) {
+        if (statusCode >= 0 && statusCode < MAX_STATUS) {
+            statuses.incrementAndGet(statusCode);
+        }
+    }
+
+    public void queueWait(long nanos) {
+        queueWait.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void handler(long nanos) {
+        handler.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void serialization(long nanos) {
+        serialization.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long statusCount(int statusCode) {
+        return statusCode >= 0 && statusCode < MAX_STATUS ? statuses.get(statusCode) : 0;
+    }
+
+    public Histogram getQueueWait() {
+        return queueWait;
+    }
+
+    public Histogram getHandler() {
+        return handler;
+    }
+
+    public Histogram getSerialization() {
+        return serialization;
+    }
+
+    public Histogram getTotal() {
+        return total;
+    }
+
+    public Histogram getBytesIn() {
+        return bytesIn;
+    }
+
+    public Histogram getBytesOut() {
+        return bytesOut;
+    }
+
+    public Glob snapshot() {
+        List<Glob> counts = new ArrayList<>();
+        for (int i = 0; i < MAX_STATUS; i++) {
+            long count = statuses.get(i);
+            if (count != 0) {
+                counts.add(StatusCount.TYPE.instantiate()
+                        .set(StatusCount.status, i)
+                        .set(StatusCount.count, count));
+            }
+        }
+        return RouteSnapshot.TYPE.instantiate()
+                .set(RouteSnapshot.url, url)
+                .set(RouteSnapshot.verb, verb.name())
+                .set(RouteSnapshot.inFlight, inFlight.get())
+                .set(RouteSnapshot.statuses, counts.toArray(Glob[]::new))
+                .set(RouteSnapshot.queueWait, queueWait.snapshot().toGlob())
+                .set(RouteSnapshot.handler, handler.snapshot().toGlob())
+                .set(RouteSnapshot.serialization, serialization.snapshot().toGlob())
+                .set(RouteSnapshot.total, total.snapshot().toGlob())
+                .set(RouteSnapshot.bytesIn, bytesIn.snapshot().toGlob())
+                .set(RouteSnapshot.bytesOut, bytesOut.snapshot().toGlob());
+    }
+}
@@ -0,0 +1,37 @@
+package org.globsframework.http.metrics.model;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.DoubleField;
+import org.globsframework.core.metamodel.fields.LongField;
+
+public class HistogramSnapshot {
+    public static final GlobType TYPE;
+
+    public static final LongField count;
+
+    public static final DoubleField mean;
+
+    public static final LongField max;
+
+    public static final LongField p50;
+
+    public static final LongField p90;
+
+    public static final LongField p99;
+
+    public static final LongField p999;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("HistogramSnapshot");
+        count = typeBuilder.declareLongField("count");
+        mean = typeBuilder.declareDoubleField("mean");
+        max = typeBuilder.declareLongField("max");
+        p50 = typeBuilder.declareLongField("p50");
+        p90 = typeBuilder.declareLongField("p90");
+        p99 = typeBuilder.declareLongField("p99");
+        p999 = typeBuilder.declareLongField("p999");
+        TYPE = typeBuilder.build();
+    }
+}
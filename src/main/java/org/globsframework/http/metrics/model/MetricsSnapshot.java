@@ -0,0 +1,31 @@
+package org.globsframework.http.metrics.model;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.annotations.Target;
+import org.globsframework.core.metamodel.fields.GlobArrayField;
+import org.globsframework.core.metamodel.fields.LongField;
+import org.globsframework.core.metamodel.fields.StringField;
+
+public class MetricsSnapshot {
+    public static final GlobType TYPE;
+
+    public static final StringField serverName;
+
+    /**
+     * Requests matching no registered operation (answered with a 403).
+     */
+    public static final LongField unmatched;
+
+    @Target(RouteSnapshot.class)
+    public static final GlobArrayField<RouteSnapshot> routes;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("MetricsSnapshot");
+        serverName = typeBuilder.declareStringField("serverName");
+        unmatched = typeBuilder.declareLongField("unmatched");
+        routes = typeBuilder.declareGlobArrayField("routes", () -> RouteSnapshot.TYPE);
+        TYPE = typeBuilder.build();
+    }
+}
@@ -0,0 +1,72 @@
+package org.globsframework.http.metrics.model;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.annotations.Target;
+import org.globsframework.core.metamodel.fields.GlobArrayField;
+import org.globsframework.core.metamodel.fields.GlobField;
+import org.globsframework.core.metamodel.fields.IntegerField;
+import org.globsframework.core.metamodel.fields.StringField;
+
+/**
+ * Metrics of one operation (url template and verb). Durations are in microseconds, sizes in bytes.
+ */
+public class RouteSnapshot {
+    public static final GlobType TYPE;
+
+    public static final StringField url;
+
+    public static final StringField verb;
+
+    public static final IntegerField inFlight;
+
+    @Target(StatusCount.class)
+    public static final GlobArrayField<StatusCount> statuses;
+
+    /**
+     * From the end of the request body to the call of the handler (executor and bulkhead queues).
+     */
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> queueWait;
+
+    /**
+     * From the call of the handler to the completion of its future.
+     */
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> handler;
+
+    /**
+     * Encoding of the response (JSON, compression) before it is sent; the chunked and streamed responses are
+     * encoded as they are sent, their encoding is not in it.
+     */
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> serialization;
+
+    /**
+     * From the reception of the request headers to the release of the exchange.
+     */
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> total;
+
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> bytesIn;
+
+    @Target(HistogramSnapshot.class)
+    public static final GlobField<HistogramSnapshot> bytesOut;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("RouteSnapshot");
+        url = typeBuilder.declareStringField("url");
+        verb = typeBuilder.declareStringField("verb");
+        inFlight = typeBuilder.declareIntegerField("inFlight");
+        statuses = typeBuilder.declareGlobArrayField("statuses", () -> StatusCount.TYPE);
+        queueWait = typeBuilder.declareGlobField("queueWait", () -> HistogramSnapshot.TYPE);
+        handler = typeBuilder.declareGlobField("handler", () -> HistogramSnapshot.TYPE);
+        serialization = typeBuilder.declareGlobField("serialization", () -> HistogramSnapshot.TYPE);
+        total = typeBuilder.declareGlobField("total", () -> HistogramSnapshot.TYPE);
+        bytesIn = typeBuilder.declareGlobField("bytesIn", () -> HistogramSnapshot.TYPE);
+        bytesOut = typeBuilder.declareGlobField("bytesOut", () -> HistogramSnapshot.TYPE);
+        TYPE = typeBuilder.build();
+    }
+}
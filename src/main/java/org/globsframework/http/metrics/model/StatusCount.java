@@ -0,0 +1,22 @@
+package org.globsframework.http.metrics.model;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.IntegerField;
+import org.globsframework.core.metamodel.fields.LongField;
+
+public class StatusCount {
+    public static final GlobType TYPE;
+
+    public static final IntegerField status;
+
+    public static final LongField count;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("StatusCount");
+        status = typeBuilder.declareIntegerField("status");
+        count = typeBuilder.declareLongField("count");
+        TYPE = typeBuilder.build();
+    }
+}
@@ -0,0 +1,21 @@
+package org.globsframework.http.openapi.model;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.StringField;
+
+public class GetOpenApiHeaderType {
+    public static final GlobType TYPE;
+
+    public static final StringField ifNoneMatch;
+
+    public static final StringField acceptEncoding;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("GetOpenApiHeader");
+        ifNoneMatch = typeBuilder.declareStringField("If-None-Match");
+        acceptEncoding = typeBuilder.declareStringField("Accept-Encoding");
+        TYPE = typeBuilder.build();
+    }
+}
@@ -7,12 +7,24 @@ import org.globsframework.core.metamodel.fields.*;
 import org.globsframework.core.model.Glob;
 import org.globsframework.core.model.MutableGlob;
 import org.globsframework.core.utils.Ref;
+import org.globsframework.http.GlobHttpContent;
 import org.globsframework.http.HttpOperation;
 import org.globsframework.http.HttpServerRegister;
+import org.globsframework.http.ResponseCompression;
+import org.globsframework.http.model.HttpHeader;
+import org.globsframework.http.streams.CompressingOutputStream;
+import org.globsframework.json.GSonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 public class GlobOpenApi {
     private static final String DOUBLE_STR = "double";
@@ -24,11 +36,21 @@ public class GlobOpenApi {
     private static final Logger log = LoggerFactory.getLogger(GlobOpenApi.class);
     private Glob openApiDoc;
     private final HttpServerRegister httpServerRegister;
+    private boolean gzip;
+    private int port = -1;
+    private volatile EncodedDocs encodedDocs;
 
     public GlobOpenApi(HttpServerRegister httpServerRegister) {
         this.httpServerRegister = httpServerRegister;
     }
 
+    /**
+     * Also keep the gzipped JSON of the docs, sent to the clients accepting it. To be called before initOpenApiDoc.
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
     public Glob getOpenApiDoc() {
         if (openApiDoc == null) { // if initOpenApiDoc was not called yet
             initOpenApiDoc(-1);
@@ -64,7 +86,8 @@ public class GlobOpenApi {
         return Arrays.asList(currentScopes).contains(targetScope);
     }
 
-    public void initOpenApiDoc(int port) {
+    public synchronized void initOpenApiDoc(int port) {
+        int routesVersion = httpServerRegister.getRoutesVersion();
         Map<GlobType, Glob> schemas = new LinkedHashMap<>();
         List<Glob> paths = new ArrayList<>();
         for (Map.Entry<String, HttpServerRegister.Verb> stringVerbEntry : httpServerRegister.verbMap.entrySet()) {
@@ -86,6 +109,158 @@ public class GlobOpenApi {
                 .set(OpenApiType.servers, new Glob[]{OpenApiServers.TYPE.instantiate()
                         .set(OpenApiServers.url, "http://localhost:" + port)})
                 .set(OpenApiType.paths, paths.toArray(Glob[]::new));
+        this.port = port;
+        encodedDocs = encodeDocs(routesVersion);
+    }
+
+    /**
+     * @param tag null for the whole doc.
+     * @return the JSON of the doc, encoded when the doc was built; rebuilt if an operation was registered since.
+     */
+    public EncodedDoc getEncodedDoc(String tag) {
+        EncodedDocs docs = encodedDocs;
+        if (docs == null || docs.routesVersion != httpServerRegister.getRoutesVersion()) {
+            docs = rebuild();
+        }
+        if (tag == null) {
+            return docs.all;
+        }
+        return docs.byTag.getOrDefault(tag, docs.noTag);
+    }
+
+    private synchronized EncodedDocs rebuild() {
+        EncodedDocs docs = encodedDocs;
+        if (docs == null || docs.routesVersion != httpServerRegister.getRoutesVersion()) {
+            initOpenApiDoc(port);
+            docs = encodedDocs;
+        }
+        return docs;
+    }
+
+    private EncodedDocs encodeDocs(int routesVersion) {
+        Set<String> tags = new TreeSet<>();
+        for (Glob path : openApiDoc.getOrEmpty(OpenApiType.paths)) {
+            for (GlobField<?> field : new GlobField<?>[]{OpenApiPath.get, OpenApiPath.put, OpenApiPath.post, OpenApiPath.delete, OpenApiPath.patch}) {
+                Glob pathDescription = path.get(field);
+                if (pathDescription != null) {
+                    tags.addAll(Arrays.asList(pathDescription.getOrEmpty(OpenApiPathDsc.tags)));
+                }
+            }
+        }
+        Map<String, EncodedDoc> byTag = new HashMap<>();
+        for (String tag : tags) {
+            byTag.put(tag, encode(createOpenApiDocByTags(tag)));
+        }
+        // the doc of any unknown tag: no path
+        EncodedDoc noTag = encode(openApiDoc.duplicate().set(OpenApiType.paths, new Glob[0]));
+        return new EncodedDocs(routesVersion, encode(openApiDoc), byTag, noTag);
+    }
+
+    private EncodedDoc encode(Glob doc) {
+        byte[] json = GSonUtils.encode(doc, false).getBytes(StandardCharsets.UTF_8);
+        return new EncodedDoc(json, gzip ? gzip(json) : null, hash(json));
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record EncodedDocs(int routesVersion, EncodedDoc all, Map<String, EncodedDoc> byTag, EncodedDoc noTag) {
+    }
+
+    /**
+     * JSON of a doc, gzipped if GlobOpenApi.setGzip was called.
+     */
+    public static final class EncodedDoc {
+        private final byte[] json;
+        private final byte[] gzip;
+        // strong ETags: the gzipped representation has its own
+        private final String etag;
+        private final String gzipEtag;
+
+        private EncodedDoc(byte[] json, byte[] gzip, String hash) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = "\"" + hash + "\"";
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return null if not gzipped.
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        /**
+         * @return the ETag of the JSON (not gzipped).
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return a 304 if ifNoneMatch has the ETag of the doc, else the doc, gzipped if accepted.
+         */
+        public Glob toHttpContent(String ifNoneMatch, String acceptEncoding) {
+            boolean gzipped = gzip != null && ResponseCompression.negotiate(acceptEncoding) == CompressingOutputStream.Encoding.GZIP;
+            List<Glob> headers = new ArrayList<>();
+            headers.add(HttpHeader.create("ETag", gzipped ? gzipEtag : etag));
+            if (gzip != null) {
+                headers.add(HttpHeader.create("Vary", "Accept-Encoding"));
+            }
+            MutableGlob content = GlobHttpContent.TYPE.instantiate();
+            if (matches(ifNoneMatch)) {
+                return content.set(GlobHttpContent.statusCode, 304)
+                        .set(GlobHttpContent.headers, headers.toArray(Glob[]::new));
+            }
+            byte[] bytes = json;
+            if (gzipped) {
+                headers.add(HttpHeader.create("Content-Encoding", "gzip"));
+                bytes = gzip;
+            }
+            return content.set(GlobHttpContent.statusCode, 200)
+                    .set(GlobHttpContent.content, bytes)
+                    .set(GlobHttpContent.mimeType, "application/json")
+                    .set(GlobHttpContent.charset, "UTF-8")
+                    .set(GlobHttpContent.headers, headers.toArray(Glob[]::new));
+        }
+
+        // If-None-Match is a list of ETags (weak comparison, RFC 9110) or *
+        private boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || (gzip != null && tag.equals(gzipEtag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     private void createVerbDoc(Map<GlobType, Glob> schemas, List<Glob> paths, Map.Entry<String, HttpServerRegister.Verb> stringVerbEntry) {
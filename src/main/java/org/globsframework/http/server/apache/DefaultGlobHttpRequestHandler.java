@@ -8,15 +8,26 @@ import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
 import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
 import org.globsframework.core.metamodel.GlobType;
 import org.globsframework.core.metamodel.fields.*;
 import org.globsframework.core.model.Glob;
-import org.globsframework.core.model.MutableGlob;
 import org.globsframework.http.*;
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.jfr.BodyReceivedEvent;
+import org.globsframework.http.jfr.ExchangeEvent;
+import org.globsframework.http.jfr.HandlerDispatchEvent;
+import org.globsframework.http.jfr.HandlerEvent;
+import org.globsframework.http.jfr.JsonEncodeEvent;
+import org.globsframework.http.metrics.RouteMetrics;
 import org.globsframework.http.model.HttpBodyData;
 import org.globsframework.http.model.HttpHeader;
 import org.globsframework.http.model.HttpGlobResponse;
 import org.globsframework.http.model.StatusCode;
+import org.globsframework.http.streams.BufferedsInputStream;
+import org.globsframework.http.streams.CompressingOutputStream;
+import org.globsframework.http.streams.DirectBufferPool;
+import org.globsframework.http.streams.IncrementalGlobJsonDecoder;
 import org.globsframework.http.streams.MultiBufferOutputStream;
 import org.globsframework.http.streams.MultiByteArrayInputStream;
 import org.globsframework.json.GSonUtils;
@@ -26,99 +37,230 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.util.HashMap;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger("org.globsframework.http.DefaultGlobHttpRequestHandler");
     public static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
-    private static final Map<GlobType, Map<String, Field>> HEADER_FIELDS = new ConcurrentHashMap<>();
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", UTF_8);
+    private static final ScheduledThreadPoolExecutor DEADLINES = createDeadlineTimer();
+    // a query sent in the body of a POST (method override) is a few kB, as a long url
+    private static final int MAX_QUERY_BODY = 64 * 1024;
+    private final GlobHttpRequestHandlerBuilder.HttpHandler httpHandler;
     private final HttpOperation operation;
+    private final String route;
     private final Glob urlGlob;
-    private final Glob paramType;
+    private Glob paramType;
     private final HttpRequest request;
     private final EntityDetails requestEntityDetails;
     private final ResponseChannel responseChannel;
     private final HttpContext context;
-    private final Glob header;
+    private final HeaderParser headerParser;
     // volatile: assigned by the worker thread (in the response* methods, before sendResponse)
     // and read by the I/O reactor thread under the monitor in produceResponse/availableInResponse.
     private volatile DataToSendProvider stream;
     private MultiByteArrayInputStream multiByteArrayInputStream;
+    private IncrementalGlobJsonDecoder jsonDecoder;
+    private volatile BufferedsInputStream streamedBody;
+    private boolean invalidBody;
+    // the body is the query of a GET or DELETE too long for the url
+    private Function<String, Glob> queryParser;
+    private ByteArrayOutputStream queryBody;
+    // the query read from queryBody, part of the coalescing key in place of the one of the url
+    private String bodyQuery;
+    // GlobBinaryCodec instead of JSON, if the operation accepts it and the client asks for it
+    private final boolean binaryRequest;
+    private final boolean binaryResponse;
+    // null if not coalesced, else holds the key of the flight this exchange leads, until its response is shared
+    private final Coalescing coalescing;
+    private final AtomicReference<String> flightKey;
+    private List<ByteBuffer> sharedBody;
+    private final ReceiveWindow receiveWindow;
+    private final RequestDeadline deadline;
+    // sends the 504 when the deadline is exceeded, whatever the step of the exchange; scheduled once admitted
+    private ScheduledFuture<?> deadlineTimer;
+    // set once the handler is called, cancelled by the deadline timer
+    private volatile CompletableFuture<HttpOutputData> pendingResult;
+    private final AtomicBoolean responded = new AtomicBoolean();
+    private final RouteMetrics metrics;
+    private final long startNanos;
+    private long readyNanos;
+    private boolean queueWaitRecorded;
+    private long receivedBytes;
+    // received in queryBody or multiByteArrayInputStream, its capacity given back once the body is handed over
+    private int heldBytes;
+    // written in produceResponse, read in releaseResources
+    private volatile long sentBytes;
+    private volatile int responseStatus;
+    // JFR events, null if not recorded
+    private BodyReceivedEvent bodyEvent;
+    private HandlerDispatchEvent dispatchEvent;
+    private ExchangeEvent exchangeEvent;
+    // written by the worker thread, given back to the pool by the reactor in releaseResources
+    private volatile MultiBufferOutputStream responseBuffers;
+    private volatile HttpOutputData.GlobStreamHttpOutputData responseGlobs;
+    // encoded on the executor of the operation, stopped by the reactor in releaseResources
+    private volatile PrefetchedChunks responseChunks;
+    // set by the reactor in produceResponse, for the encoding thread to ask for an output event
+    private volatile DataStreamChannel dataChannel;
+    private volatile FileRegions responseFile;
+    // set by the worker thread, removed from the bulkhead queue by the reactor if the exchange is aborted
+    private volatile Runnable queuedHandler;
+    private volatile AdaptiveLimiter.Permit permit;
     private long responseSize;
     private ByteBuffer currentResponseBuffer;
 
-    public DefaultGlobHttpRequestHandler(HttpOperation operation, Glob urlGlob, Glob paramType, HttpRequest request,
-                                         EntityDetails requestEntityDetails, ResponseChannel responseChannel, HttpContext context) {
-        this.operation = operation;
+    public DefaultGlobHttpRequestHandler(GlobHttpRequestHandlerBuilder.HttpHandler httpHandler, String route, Glob urlGlob,
+                                         Glob paramType, HttpRequest request, EntityDetails requestEntityDetails,
+                                         ResponseChannel responseChannel, HttpContext context) {
+        this.httpHandler = httpHandler;
+        this.operation = httpHandler.operation;
+        this.route = route;
         this.urlGlob = urlGlob;
         this.paramType = paramType;
         this.request = request;
         this.requestEntityDetails = requestEntityDetails;
         this.responseChannel = responseChannel;
         this.context = context;
+        this.receiveWindow = new ReceiveWindow(operation.getReceiveWindow());
         GlobType headerType = operation.getHeaderType();
-        this.header = headerType != null ? parseHeader(headerType, request.getHeaders()) : null;
+        // parsed on the handler thread, only if the request is handled
+        this.headerParser = headerType != null ? HeaderParser.get(headerType) : null;
+        this.deadline = deadline(operation, request);
+        this.binaryRequest = operation.hasBinaryFormat() && requestEntityDetails != null
+                             && GlobBinaryCodec.isBinary(requestEntityDetails.getContentType());
+        Header accept = request.getFirstHeader(HttpHeaders.ACCEPT);
+        this.binaryResponse = operation.hasBinaryFormat() && accept != null && GlobBinaryCodec.accepts(accept.getValue());
+        this.coalescing = operation.verb() == HttpOp.get ? operation.getPolicies().coalescing() : null;
+        this.flightKey = coalescing != null ? new AtomicReference<>() : null;
+        this.metrics = httpHandler.metrics;
+        this.startNanos = System.nanoTime();
+        this.exchangeEvent = ExchangeEvent.start();
+        this.bodyEvent = BodyReceivedEvent.start();
     }
 
-    /**
-     * Header names are case-insensitive (RFC 9110) and clients do not agree on a casing, so fields are
-     * matched on the lower-cased name. The per-type map is built once and cached rather than rescanning
-     * the metamodel for every header of every request.
-     */
-    private static Map<String, Field> fieldsByLowerCaseName(GlobType headerType) {
-        return HEADER_FIELDS.computeIfAbsent(headerType, type -> {
-            Map<String, Field> byName = new HashMap<>();
-            for (Field field : type.getFields()) {
-                byName.put(field.getName().toLowerCase(Locale.ROOT), field);
-            }
-            return byName;
+    private static ScheduledThreadPoolExecutor createDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "globs-http-deadlines");
+            thread.setDaemon(true);
+            return thread;
         });
+        timer.setRemoveOnCancelPolicy(true); // most requests complete in time
+        return timer;
+    }
+
+    private static RequestDeadline deadline(HttpOperation operation, HttpRequest request) {
+        long now = System.nanoTime();
+        long timeout = operation.getPolicies().timeout();
+        long remaining = timeout > 0 ? TimeUnit.MILLISECONDS.toNanos(timeout) : Long.MAX_VALUE;
+        Header header = request.getFirstHeader(RequestDeadline.HEADER);
+        if (header != null) {
+            try {
+                long fromHeader = Long.parseLong(header.getValue().trim()) - System.currentTimeMillis();
+                remaining = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(fromHeader));
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Invalid {} : {}", RequestDeadline.HEADER, header.getValue());
+            }
+        }
+        return remaining == Long.MAX_VALUE ? null : new RequestDeadline(now + remaining);
+    }
+
+    void readQueryFromBody(Function<String, Glob> queryParser) {
+        this.queryParser = queryParser;
+        this.queryBody = new ByteArrayOutputStream();
     }
 
-    private Glob parseHeader(GlobType headerType, Header[] allHeaders) {
-        MutableGlob instance = headerType.instantiate();
-        Map<String, Field> byName = fieldsByLowerCaseName(headerType);
-        for (Header allHeader : allHeaders) {
-            final String name = allHeader.getName();
-            final Field field = byName.get(name.toLowerCase(Locale.ROOT));
-            if (field != null) {
-                if (field instanceof StringField) {
-                    instance.set(field.asStringField(), allHeader.getValue());
-                } else if (field instanceof IntegerField) {
-                    instance.set(field.asIntegerField(), Integer.parseInt(allHeader.getValue()));
-                } else if (field instanceof LongField) {
-                    instance.set(field.asLongField(), Long.parseLong(allHeader.getValue()));
-                } else if (field instanceof BooleanField) {
-                    instance.set(field.asBooleanField(), Boolean.parseBoolean(allHeader.getValue()));
+    public boolean admit() {
+        AdaptiveLimiter limiter = httpHandler.adaptiveLimiter;
+        if (limiter != null) {
+            permit = limiter.tryAcquire();
+            if (permit == null) {
+                if (metrics != null) {
+                    metrics.status(503);
                 }
+                return false;
             }
         }
-        return instance;
+        if (metrics != null) {
+            metrics.started();
+        }
+        // a shed request is answered by another handler: this one must not send a 504 over its 503
+        if (deadline != null) {
+            deadlineTimer = DEADLINES.schedule(this::deadlineExceeded, deadline.remaining(TimeUnit.NANOSECONDS),
+                    TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    public GlobHttpRequestHandler rejected() {
+        return new GlobHttpRequestHandlerBuilder.ResponseGlobHttpRequestHandler(responseChannel, context, 503,
+                httpHandler.accessLog, route, operation.verb().name());
     }
 
     public void callHandler() {
-        operation.getExecutor().execute(() -> {
+        dispatch(() -> {
             callHandler(null);
         });
     }
 
+    // the request is read: the time until the handler is called is the queue wait
+    private void dispatch(Runnable handler) {
+        readyNanos = System.nanoTime();
+        if (bodyEvent != null) {
+            bodyEvent.complete(route, operation.verb().name(), receivedBytes);
+            bodyEvent = null;
+        }
+        dispatchEvent = HandlerDispatchEvent.start();
+        httpHandler.executor.execute(handler);
+    }
+
     public void streamEnd(List<? extends Header> trailers) {
-        if (multiByteArrayInputStream != null) {
-            operation.getExecutor().execute(() -> {
-                if (operation.getBodyType() != null) {
-                    Glob glob = GSonUtils.decode(new InputStreamReader(multiByteArrayInputStream), operation.getBodyType());
-                    callHandler(HttpInputData.fromGlob(glob));
-                } else {
-                    callHandler(HttpInputData.fromStream(multiByteArrayInputStream, requestEntityDetails.getContentLength()));
+        if (invalidBody) {
+            // already answered
+        } else if (queryBody != null) {
+            String query = queryBody.toString(UTF_8);
+            bodyQuery = query;
+            releaseHeld();
+            dispatch(() -> {
+                try {
+                    paramType = queryParser.apply(query);
+                } catch (Exception e) {
+                    manageException(e);
+                    return;
                 }
+                callHandler(null);
+            });
+        } else if (streamedBody != null) {
+            streamedBody.newBuffer(null, true);
+        } else if (multiByteArrayInputStream != null) {
+            dispatchBody(multiByteArrayInputStream);
+        } else if (jsonDecoder != null) {
+            Glob glob;
+            try {
+                glob = jsonDecoder.complete();
+            } catch (Exception e) {
+                send400(e);
+                return;
+            }
+            dispatch(() -> {
+                callHandler(HttpInputData.fromGlob(glob));
             });
         } else {
             // already called in consumeRequest
@@ -126,28 +268,149 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
     }
 
     public void consumeRequest(ByteBuffer src) {
-        if (multiByteArrayInputStream != null) {
+        int size = src.remaining();
+        receivedBytes += size;
+        receiveWindow.received(size);
+        if (streamedBody != null || (operation.getBodyType() == null && httpHandler.streamedBody && queryBody == null)) {
+            streamBody(src, size);
+            return;
+        }
+        consumeBody(src);
+        // an inline handler would read the stream on the reactor that feeds it: its body is buffered whole
+        boolean held = queryBody != null
+                       || (multiByteArrayInputStream != null && httpHandler.executor != HttpOperation.INLINE_EXECUTOR);
+        if (invalidBody || !held) {
+            // drained by the decoder, copied for the handler or dropped
+            receiveWindow.released(size);
+            return;
+        }
+        heldBytes += size;
+        if (heldBytes >= operation.getReceiveWindow()) {
+            // the window is full: held back, the remaining of the body would never be received
+            if (queryBody != null) {
+                invalidBody = true;
+                releaseHeld();
+                send413();
+            } else {
+                streamBufferedBody();
+            }
+        }
+    }
+
+    private void releaseHeld() {
+        receiveWindow.released(heldBytes);
+        heldBytes = 0;
+    }
+
+    // the body received so far and its remaining are read by the decoder or the handler as they arrive, their
+    // capacity given back as they are read
+    private void streamBufferedBody() {
+        BufferedsInputStream body = new BufferedsInputStream(receiveWindow::released);
+        try {
+            body.newBuffer(ByteBuffer.wrap(multiByteArrayInputStream.readAllBytes()), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        heldBytes = 0;
+        multiByteArrayInputStream = null;
+        streamedBody = body;
+        dispatchBody(body);
+    }
+
+    private void dispatchBody(InputStream body) {
+        releaseHeld();
+        dispatch(() -> {
+            if (operation.getBodyType() != null) {
+                Glob glob;
+                try (body) {
+                    glob = binaryRequest ? GlobBinaryCodec.read(body, operation.getBodyType()) :
+                            GSonUtils.decode(new InputStreamReader(body), operation.getBodyType());
+                } catch (Exception e) {
+                    send400(e);
+                    return;
+                }
+                callHandler(HttpInputData.fromGlob(glob));
+            } else {
+                callHandler(HttpInputData.fromStream(body, requestEntityDetails.getContentLength()));
+            }
+        });
+    }
+
+    // the capacity is given back as the handler reads the stream
+    private void streamBody(ByteBuffer src, int size) {
+        if (streamedBody == null) {
+            BufferedsInputStream body = new BufferedsInputStream(receiveWindow::released);
+            streamedBody = body;
+            dispatch(() -> {
+                callHandler(HttpInputData.fromStream(body, requestEntityDetails.getContentLength()));
+            });
+        }
+        if (!streamedBody.newBuffer(src, false)) {
+            receiveWindow.released(size); // closed by the handler, the remaining of the body is dropped
+        }
+    }
+
+    private void consumeBody(ByteBuffer src) {
+        if (invalidBody) {
+            return;
+        }
+        if (queryBody != null) {
+            if (queryBody.size() + src.remaining() > MAX_QUERY_BODY) {
+                invalidBody = true;
+                releaseHeld();
+                send413();
+                return;
+            }
+            if (src.hasArray()) {
+                queryBody.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+                src.position(src.limit());
+            } else {
+                byte[] bytes = new byte[src.remaining()];
+                src.get(bytes);
+                queryBody.write(bytes, 0, bytes.length);
+            }
+            return;
+        }
+        if (jsonDecoder == null && multiByteArrayInputStream == null && operation.getBodyType() != null && !binaryRequest
+            && IncrementalGlobJsonDecoder.isSupported(operation.getBodyType())) {
+            jsonDecoder = new IncrementalGlobJsonDecoder(operation.getBodyType());
+        }
+        if (jsonDecoder != null) {
+            // decoded as the buffers arrive: the body is not kept in memory
+            try {
+                jsonDecoder.feed(src);
+            } catch (Exception e) {
+                invalidBody = true;
+                send400(e);
+            }
+        } else if (multiByteArrayInputStream != null) {
             multiByteArrayInputStream.addBuffer(src);
         } else if (src.limit() - src.position() == requestEntityDetails.getContentLength()) {
             HttpInputData inputData;
             if (operation.getBodyType() != null) {
                 Glob glob = null;
                 try {
-                    CharBuffer decode = UTF_8.decode(src);
-                    glob = GSonUtils.decode(new Reader() {
-                        public int read(char[] chars, int offset, int length) throws IOException {
-                            int maxLen = Math.min(length, decode.remaining());
-                            if (maxLen > 0) {
-                                decode.get(chars, offset, maxLen);
+                    if (binaryRequest) {
+                        byte[] body = new byte[src.remaining()];
+                        src.get(body);
+                        glob = GlobBinaryCodec.read(new ByteArrayInputStream(body), operation.getBodyType());
+                    } else {
+                        CharBuffer decode = UTF_8.decode(src);
+                        glob = GSonUtils.decode(new Reader() {
+                            public int read(char[] chars, int offset, int length) throws IOException {
+                                int maxLen = Math.min(length, decode.remaining());
+                                if (maxLen > 0) {
+                                    decode.get(chars, offset, maxLen);
+                                }
+                                return maxLen;
                             }
-                            return maxLen;
-                        }
 
-                        public void close() throws IOException {
-                        }
-                    }, operation.getBodyType());
+                            public void close() throws IOException {
+                            }
+                        }, operation.getBodyType());
+                    }
                 } catch (Exception e) {
-                    send500(e);
+                    send400(e);
                     return;
                 }
                 inputData = HttpInputData.fromGlob(glob);
@@ -157,7 +420,7 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
                 src.get(dst);
                 inputData = HttpInputData.fromStream(new ByteArrayInputStream(dst), len);
             }
-            operation.getExecutor().execute(() -> {
+            dispatch(() -> {
                 callHandler(inputData);
             });
         } else {
@@ -167,28 +430,212 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
     }
 
     private void callHandler(HttpInputData inputData) {
+        Bulkhead bulkhead = operation.getPolicies().bulkhead();
+        if (bulkhead == null) {
+            invokeHandler(inputData, null);
+            return;
+        }
+        Runnable handler = () -> invokeHandler(inputData, bulkhead);
+        queuedHandler = handler;
+        if (!bulkhead.submit(handler)) {
+            if (streamedBody != null) {
+                streamedBody.close(); // the remaining of the body is dropped
+            }
+            send503(bulkhead.getRetryAfterSeconds());
+        }
+    }
+
+    private void invokeHandler(HttpInputData inputData, Bulkhead bulkhead) {
+        long start = System.nanoTime();
+        if (!queueWaitRecorded) {
+            // once: a request waiting for an identical one in flight comes back here if its response is not shared
+            queueWaitRecorded = true;
+            if (metrics != null) {
+                metrics.queueWait(start - readyNanos);
+            }
+            HandlerDispatchEvent dispatched = dispatchEvent;
+            if (dispatched != null) {
+                dispatched.complete(route, operation.verb().name());
+            }
+        }
+        if (deadline != null && deadline.isExpired()) {
+            releaseSlot(bulkhead);
+            send504();
+            return;
+        }
+        if (coalescing != null && !joinFlight(bulkhead, start)) {
+            return;
+        }
         try {
-            operation.consume(inputData, urlGlob, paramType, header)
-                    .whenComplete((httpOutputData, throwable) -> {
-                        if (throwable != null) {
-                            if (throwable instanceof CompletionException) {
-                                manageException(throwable.getCause());
-                            } else {
-                                manageException(throwable);
-                            }
-                        } else if (httpOutputData != null) {
-                            switch (httpOutputData) {
-                                case HttpOutputData.GlobArrayHttpOutputData outputData -> reponseGlobArray(outputData);
-                                case HttpOutputData.GlobHttpOutputData outputData -> responseGlob(outputData);
-                                case HttpOutputData.KnownSizeStreamHttpOutputData outputData ->
-                                        responseStream(outputData);
-                            }
-                        } else {
-                            send204();
-                        }
-                    });
+            HandlerEvent handlerEvent = HandlerEvent.start();
+            Glob header = headerParser != null ? headerParser.parse(request.getHeaders()) : null;
+            CompletableFuture<HttpOutputData> result;
+            if (deadline == null) {
+                result = operation.consume(inputData, urlGlob, paramType, header);
+            } else {
+                RequestDeadline previous = RequestDeadline.enter(deadline);
+                try {
+                    result = operation.consume(inputData, urlGlob, paramType, header);
+                } finally {
+                    RequestDeadline.restore(previous);
+                }
+            }
+            if (deadline != null) {
+                pendingResult = result;
+                if (deadline.isExpired()) {
+                    result.cancel(true); // the timer may have fired while the handler was called
+                }
+            }
+            result.whenComplete((httpOutputData, throwable) -> {
+                long latency = System.nanoTime() - start;
+                try {
+                    if (metrics != null) {
+                        metrics.handler(latency);
+                    }
+                    if (handlerEvent != null) {
+                        handlerEvent.handlerDone();
+                    }
+                    if (throwable instanceof CancellationException && deadline != null && deadline.isExpired()) {
+                        send504();
+                    } else if (metrics != null) {
+                        long encodeStart = System.nanoTime();
+                        sendOutput(httpOutputData, throwable);
+                        metrics.serialization(System.nanoTime() - encodeStart);
+                    } else {
+                        sendOutput(httpOutputData, throwable);
+                    }
+                } finally {
+                    if (handlerEvent != null) {
+                        handlerEvent.complete(route, operation.verb().name(), responseStatus);
+                    }
+                    leaveFlight();
+                    releaseSlot(bulkhead);
+                    AdaptiveLimiter.Permit held = permit;
+                    if (held != null) {
+                        held.release(latency);
+                    }
+                }
+            });
         } catch (Exception ex) {
+            releaseSlot(bulkhead);
             manageException(ex);
+            leaveFlight();
+        }
+    }
+
+    // on the timer thread: a running handler is cancelled, its completion sending the 504; before, the exchange
+    // is removed from the bulkhead queue and its body dropped
+    private void deadlineExceeded() {
+        CompletableFuture<HttpOutputData> result = pendingResult;
+        if (result != null) {
+            result.cancel(true);
+            return;
+        }
+        Runnable handler = queuedHandler;
+        if (handler != null) {
+            operation.getPolicies().bulkhead().cancel(handler);
+        }
+        BufferedsInputStream body = streamedBody;
+        if (body != null) {
+            body.close();
+        }
+        send504();
+    }
+
+    // false if the response of an identical request in flight is awaited instead of calling the handler
+    private boolean joinFlight(Bulkhead bulkhead, long start) {
+        String key = coalescingKey();
+        CompletableFuture<Coalescing.SharedResponse> flight = coalescing.join(key);
+        if (flight == null) {
+            flightKey.set(key);
+            return true;
+        }
+        releaseSlot(bulkhead);
+        flight.whenCompleteAsync((shared, throwable) -> {
+            if (shared == null) {
+                callHandler(null); // not shareable: handled on its own
+                return;
+            }
+            try {
+                sendShared(shared);
+            } finally {
+                AdaptiveLimiter.Permit held = permit;
+                if (held != null) {
+                    held.release(System.nanoTime() - start);
+                }
+            }
+        }, httpHandler.executor);
+        return false;
+    }
+
+    // the response must be the same for all the requests of a key: it includes its encoding. The raw path and
+    // query are taken as sent: the same parameters in another order or encoding are only a missed coalescing
+    private String coalescingKey() {
+        StringBuilder key = new StringBuilder();
+        key.append(request.getPath()).append('\n');
+        if (bodyQuery != null) {
+            key.append(bodyQuery);
+        }
+        key.append('\n');
+        for (String name : coalescing.getKeyHeaders()) {
+            Header header = request.getFirstHeader(name);
+            key.append(header != null ? header.getValue() : "").append('\n');
+        }
+        key.append(binaryResponse);
+        if (operation.getResponseCompression() != null) {
+            Header acceptEncoding = request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING);
+            key.append('\n').append(ResponseCompression.negotiate(acceptEncoding != null ? acceptEncoding.getValue() : null));
+        }
+        return key.toString();
+    }
+
+    private boolean leadsFlight() {
+        return flightKey != null && flightKey.get() != null;
+    }
+
+    // the waiting requests, if any, call the handler
+    private void leaveFlight() {
+        String key = flightKey != null ? flightKey.getAndSet(null) : null;
+        if (key != null) {
+            coalescing.complete(key, null);
+        }
+    }
+
+    private void sendShared(Coalescing.SharedResponse shared) {
+        BasicHttpResponse response = new BasicHttpResponse(shared.status(), shared.reasonPhrase());
+        response.setHeaders(shared.headers());
+        List<ByteBuffer> body = shared.body();
+        if (body != null) {
+            stream = sendBuffers(body);
+            responseSize = shared.entityDetails().getContentLength();
+        }
+        sendHttpResponse(response, shared.entityDetails());
+    }
+
+    private void releaseSlot(Bulkhead bulkhead) {
+        if (bulkhead != null) {
+            bulkhead.release(httpHandler.executor);
+        }
+    }
+
+    private void sendOutput(HttpOutputData httpOutputData, Throwable throwable) {
+        if (throwable != null) {
+            if (throwable instanceof CompletionException) {
+                manageException(throwable.getCause());
+            } else {
+                manageException(throwable);
+            }
+        } else if (httpOutputData != null) {
+            switch (httpOutputData) {
+                case HttpOutputData.GlobArrayHttpOutputData outputData -> reponseGlobArray(outputData);
+                case HttpOutputData.GlobHttpOutputData outputData -> responseGlob(outputData);
+                case HttpOutputData.KnownSizeStreamHttpOutputData outputData ->
+                        responseStream(outputData);
+                case HttpOutputData.GlobStreamHttpOutputData outputData ->
+                        responseGlobStream(outputData);
+            }
+        } else {
+            send204();
         }
     }
 
@@ -233,35 +680,142 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
             responseCustomHttpContent(glob);
             return;
         }
-        MultiBufferOutputStream out = new MultiBufferOutputStream();
-        OutputStreamWriter streamWriter = new OutputStreamWriter(out);
-        GSonUtils.encode(streamWriter, outputData.getGlob(), false);
+        if (glob.getType() == GlobFile.TYPE) {
+            responseFile(glob);
+            return;
+        }
+        if (binaryResponse) {
+            responseBinary(glob);
+            return;
+        }
+        responseJson(writer -> GSonUtils.encode(writer, glob, false));
+    }
+
+    private void reponseGlobArray(HttpOutputData.GlobArrayHttpOutputData outputData) {
+        if (binaryResponse) {
+            responseBinary(outputData.getGlob() != null ? outputData.getGlob() : new Glob[0]);
+            return;
+        }
+        if (operation.hasChunkedResponse() && outputData.getGlob() != null) {
+            stream = encodeOnExecutor(new JsonChunks(Arrays.asList(outputData.getGlob()).iterator(), false), () -> {
+            });
+            responseSize = -1;
+            sendHttpResponse(new BasicHttpResponse(200), new BasicEntityDetails(responseSize,
+                    ContentType.APPLICATION_JSON));
+            return;
+        }
+        Glob[] globs = outputData.getGlob();
+        responseJson(writer -> GSonUtils.encode(writer, globs, false));
+    }
+
+    // JSON encoded in pooled buffers, compressed on the fly if the operation asks for it and the client accepts it
+    private void responseJson(Consumer<Writer> encoder) {
+        ResponseCompression compression = operation.getResponseCompression();
+        CompressingOutputStream.Encoding encoding = null;
+        if (compression != null) {
+            Header acceptEncoding = request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING);
+            encoding = ResponseCompression.negotiate(acceptEncoding != null ? acceptEncoding.getValue() : null);
+        }
+        // a shared response is sent by several exchanges: not from the pool, it is left to the GC
+        DirectBufferPool pool = leadsFlight() ? null : DirectBufferPool.SHARED;
+        OutputStream out = encoding == null ? new MultiBufferOutputStream(pool) :
+                new CompressingOutputStream(pool, encoding, compression.level(), compression.minSize());
+        JsonEncodeEvent encodeEvent = JsonEncodeEvent.start();
+        OutputStreamWriter streamWriter = new OutputStreamWriter(out, UTF_8);
+        encoder.accept(streamWriter);
         try {
             streamWriter.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        List<ByteBuffer> data = out.data();
-        stream = () -> data.isEmpty() ? null : data.remove(0);
-        responseSize = out.size();
-        sendHttpResponse(new BasicHttpResponse(200), new BasicEntityDetails(responseSize,
-                ContentType.APPLICATION_JSON));
+        BasicHttpResponse response = new BasicHttpResponse(200);
+        MultiBufferOutputStream data;
+        if (out instanceof CompressingOutputStream compressing) {
+            data = compressing.result();
+            if (compressing.isCompressed()) {
+                response.addHeader(HttpHeaders.CONTENT_ENCODING, compressing.getEncoding().name);
+                ResponseCompression.compressed(compressing.uncompressedSize(), data.size());
+            }
+        } else {
+            data = (MultiBufferOutputStream) out;
+        }
+        if (compression != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (operation.hasBinaryFormat()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (encodeEvent != null) {
+            encodeEvent.complete(route, operation.verb().name(), data.size(),
+                    out instanceof CompressingOutputStream compressedOut && compressedOut.isCompressed());
+        }
+        shareBody(data);
+        responseBuffers = data;
+        stream = sendBuffers(data.data());
+        responseSize = data.size();
+        sendHttpResponse(response, new BasicEntityDetails(responseSize, ContentType.APPLICATION_JSON));
     }
 
-    private void reponseGlobArray(HttpOutputData.GlobArrayHttpOutputData outputData) {
-        MultiBufferOutputStream out = new MultiBufferOutputStream();
-        OutputStreamWriter streamWriter = new OutputStreamWriter(out);
-        GSonUtils.encode(streamWriter, outputData.getGlob(), false);
+    // not compressed: the binary format is already compact, and meant for calls between services
+    private void responseBinary(Glob... globs) {
+        MultiBufferOutputStream data = new MultiBufferOutputStream(leadsFlight() ? null : DirectBufferPool.SHARED);
         try {
-            streamWriter.close();
+            GlobBinaryCodec.write(data, globs);
+            data.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        List<ByteBuffer> data = out.data();
-        stream = () -> data.isEmpty() ? null : data.remove(0);
-        responseSize = out.size();
+        BasicHttpResponse response = new BasicHttpResponse(200);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        shareBody(data);
+        responseBuffers = data;
+        stream = sendBuffers(data.data());
+        responseSize = data.size();
+        sendHttpResponse(response, new BasicEntityDetails(responseSize, GlobBinaryCodec.CONTENT_TYPE));
+    }
+
+    // views taken before the buffers are sent, for the other exchanges of the flight
+    private void shareBody(MultiBufferOutputStream data) {
+        if (leadsFlight()) {
+            List<ByteBuffer> views = new ArrayList<>(data.data().size());
+            for (ByteBuffer buffer : data.data()) {
+                views.add(buffer.duplicate());
+            }
+            sharedBody = views;
+        }
+    }
+
+    private void responseGlobStream(HttpOutputData.GlobStreamHttpOutputData outputData) {
+        responseGlobs = outputData;
+        boolean ndJson = outputData.getFormat() == HttpOutputData.GlobStreamFormat.NDJSON;
+        stream = encodeOnExecutor(new JsonChunks(outputData.getGlobs(), ndJson), outputData::close);
+        responseSize = -1;
         sendHttpResponse(new BasicHttpResponse(200), new BasicEntityDetails(responseSize,
-                ContentType.APPLICATION_JSON));
+                ndJson ? NDJSON : ContentType.APPLICATION_JSON));
+    }
+
+    // an inline operation is encoded by the reactor, as the connection accepts data
+    private DataToSendProvider encodeOnExecutor(JsonChunks chunks, Runnable onEnd) {
+        if (httpHandler.executor == HttpOperation.INLINE_EXECUTOR) {
+            return () -> {
+                ByteBuffer buffer = chunks.nextBufferToSend();
+                if (buffer == null) {
+                    onEnd.run();
+                }
+                return buffer;
+            };
+        }
+        PrefetchedChunks prefetched = new PrefetchedChunks(chunks, httpHandler.executor, this::requestOutput, onEnd);
+        responseChunks = prefetched;
+        prefetched.start();
+        return prefetched;
+    }
+
+    private void requestOutput() {
+        DataStreamChannel channel = dataChannel;
+        if (channel != null) {
+            channel.requestOutput();
+        }
     }
 
     private void manageException(Throwable throwable) {
@@ -283,13 +837,19 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
         sendHttpResponse(new BasicHttpResponse(500), null);
     }
 
+    // the body can not be decoded in the type of the operation
+    private void send400(Exception ex) {
+        LOGGER.info("Response code 400 : invalid body on {}", request.getPath(), ex);
+        sendHttpResponse(new BasicHttpResponse(400), null);
+    }
+
     private void sendStatusWithReason(int statusCode, String reason) {
-        LOGGER.info("Response code " + statusCode + " : " + reason);
+        LOGGER.info("Response code {} : {}", statusCode, reason);
         sendHttpResponse(new BasicHttpResponse(statusCode, reason), null);
     }
 
     private void sendStatus(int statusCode, String message, ContentType contentType) {
-        LOGGER.info("Response code " + statusCode + " : " + message);
+        LOGGER.info("Response code {} : {}", statusCode, message);
         byte[] data = message.getBytes(UTF_8);
         AtomicReference<ByteBuffer> wrap = new AtomicReference<>(ByteBuffer.wrap(data));
         stream = () -> {
@@ -304,12 +864,33 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
 
     private void sendHttpResponse(BasicHttpResponse statusCode,
                                   EntityDetails responseEntityDetails) {
+        if (!responded.compareAndSet(false, true)) {
+            LOGGER.debug("Response {} dropped : already answered (deadline exceeded)", statusCode.getCode());
+            return;
+        }
         try {
             // Headers declared through HttpServerRegister.addHeader used to be dropped: the only code
             // pushing them into the response lived in the pre-httpcore5 handler. Every response goes
             // through here, so this is where they belong.
+            String key = flightKey != null ? flightKey.getAndSet(null) : null;
+            if (key != null) {
+                // an error is not shared, the waiting requests call the handler; before the operation headers,
+                // added by each exchange
+                boolean shareable = statusCode.getCode() >= 200 && statusCode.getCode() < 400
+                                    && (responseEntityDetails == null || sharedBody != null);
+                coalescing.complete(key, shareable ?
+                        new Coalescing.SharedResponse(statusCode.getCode(), statusCode.getReasonPhrase(), statusCode.getHeaders(),
+                                responseEntityDetails, sharedBody) : null);
+            }
             operation.headers(statusCode::addHeader);
+            responseStatus = statusCode.getCode();
+            if (metrics != null) {
+                metrics.status(statusCode.getCode());
+            }
             responseChannel.sendResponse(statusCode, responseEntityDetails, context);
+            if (responseEntityDetails == null) {
+                exchangeDone();
+            }
         } catch (HttpException e) {
             LOGGER.error("Fail to send response (http error)", e);
         } catch (IOException e) {
@@ -340,6 +921,59 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
                                 glob.get(GlobHttpContent.charset))));
     }
 
+    private void responseFile(Glob glob) {
+        Path path = Path.of(glob.get(GlobFile.file));
+        FileChannel channel;
+        long size;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (IOException e) {
+            LOGGER.error("{} : fail to open {}", httpHandler.serverInfo, path, e);
+            sendStatusWithReason(404, "File not found");
+            return;
+        }
+        Header rangeHeader = request.getFirstHeader(HttpHeaders.RANGE);
+        FileRegions.Range range = FileRegions.Range.parse(rangeHeader != null ? rangeHeader.getValue() : null, size);
+        BasicHttpResponse response;
+        if (range == FileRegions.Range.UNSATISFIABLE) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.error("{} : fail to close {}", httpHandler.serverInfo, path, e);
+            }
+            response = new BasicHttpResponse(416);
+            response.addHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            sendHttpResponse(response, null);
+            return;
+        }
+        boolean wholeFile = range == null;
+        if (wholeFile) {
+            range = new FileRegions.Range(0, size);
+            response = new BasicHttpResponse(200);
+        } else {
+            response = new BasicHttpResponse(206);
+            response.addHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + (range.end() - 1) + "/" + size);
+        }
+        response.addHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        FileRegions regions = new FileRegions(httpHandler.serverInfo, path, channel, range,
+                wholeFile && glob.get(GlobFile.removeWhenDelivered, false));
+        responseFile = regions;
+        stream = regions;
+        responseSize = range.length();
+        sendHttpResponse(response, new BasicEntityDetails(responseSize, fileContentType(glob.get(GlobFile.mimeType))));
+    }
+
+    private static ContentType fileContentType(String mimeType) {
+        if (mimeType == null) {
+            return ContentType.APPLICATION_OCTET_STREAM;
+        }
+        if (mimeType.indexOf(';') != -1) {
+            return ContentType.parse(mimeType);
+        }
+        return mimeType.startsWith("text/") ? ContentType.create(mimeType, UTF_8) : ContentType.create(mimeType);
+    }
+
     private void responseCustomHttpContent(Glob glob) {
         try {
             GlobType globType = glob.getType();
@@ -371,11 +1005,21 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
                         ref.bytes = null;
                     }
                 } : null;
+                if (!responded.compareAndSet(false, true)) {
+                    return;
+                }
+                responseStatus = statusCode;
+                if (metrics != null) {
+                    metrics.status(statusCode);
+                }
                 responseChannel.sendResponse(
                         new BasicHttpResponse(statusCode),
                         ref.bytes == null ? null :
                                 new BasicEntityDetails(ref.bytes.length,
                                         ContentType.APPLICATION_JSON), context);
+                if (ref.bytes == null) {
+                    exchangeDone();
+                }
             }
         } catch (HttpException e) {
             LOGGER.error("Fail to send response (http error)", e);
@@ -384,20 +1028,63 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
         }
     }
 
+    private void send503(int retryAfterSeconds) {
+        LOGGER.debug("Response code 503 : too many concurrent requests");
+        BasicHttpResponse response = new BasicHttpResponse(503);
+        response.addHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        sendHttpResponse(response, null);
+    }
+
+    private void send413() {
+        LOGGER.info("Response code 413 : body too large on {}", request.getPath());
+        sendHttpResponse(new BasicHttpResponse(413), null);
+    }
+
+    private void send504() {
+        leaveFlight(); // the deadline of the other requests may not be exceeded
+        LOGGER.info("Response code 504 : deadline exceeded on {}", request.getPath());
+        sendHttpResponse(new BasicHttpResponse(504), null);
+    }
+
     private void send204() {
         sendHttpResponse(new BasicHttpResponse(204), null);
     }
 
     interface DataToSendProvider {
+        // the next buffer is not encoded yet: produceResponse returns, the provider asks for an output event
+        ByteBuffer NOT_READY = ByteBuffer.allocate(0);
+
+        /**
+         * @return null at the end of the response, or NOT_READY.
+         */
         ByteBuffer nextBufferToSend();
+
+        /**
+         * @return false if nextBufferToSend would return NOT_READY.
+         */
+        default boolean isReady() {
+            return true;
+        }
+    }
+
+    // the buffers are kept in the list to be given back to the pool once the exchange is done
+    private static DataToSendProvider sendBuffers(List<ByteBuffer> data) {
+        return new DataToSendProvider() {
+            int index;
+
+            public ByteBuffer nextBufferToSend() {
+                return index < data.size() ? data.get(index++) : null;
+            }
+        };
     }
 
     // synchronized because produce() may be invoked both from the worker thread (synchronously,
     // via sendResponse) and from the I/O reactor thread on output-ready events.
     public synchronized void produceResponse(DataStreamChannel channel) throws IOException {
+        dataChannel = channel;
         // Finish writing a buffer that was only partially accepted by the channel last time.
         if (currentResponseBuffer != null && currentResponseBuffer.hasRemaining()) {
-            channel.write(currentResponseBuffer);
+            sentBytes += channel.write(currentResponseBuffer);
             if (currentResponseBuffer.hasRemaining()) {
                 return; // channel cannot accept more for now; wait for the next output event
             }
@@ -406,15 +1093,19 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
         // Write as many buffers as the channel will accept, then terminate the stream.
         while (stream != null) {
             ByteBuffer next = stream.nextBufferToSend();
+            if (next == DataToSendProvider.NOT_READY) {
+                return;
+            }
             if (next == null) {
                 stream = null;
                 channel.endStream(List.of());
+                exchangeDone();
                 return;
             }
             if (!next.hasRemaining()) {
                 continue;
             }
-            channel.write(next);
+            sentBytes += channel.write(next);
             if (next.hasRemaining()) {
                 currentResponseBuffer = next; // channel full; keep the rest for the next event
                 return;
@@ -422,6 +1113,15 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
         }
     }
 
+    // the last byte of the response is written
+    private synchronized void exchangeDone() {
+        ExchangeEvent event = exchangeEvent;
+        if (event != null) {
+            exchangeEvent = null;
+            event.complete(route, operation.verb().name(), responseStatus, receivedBytes, sentBytes);
+        }
+    }
+
     // synchronized and non-destructive: available() is only a hint (see AsyncDataProducer) and must
     // not consume the stream, otherwise it would race with produceResponse over the shared buffer.
     @Override
@@ -431,16 +1131,59 @@ public class DefaultGlobHttpRequestHandler implements GlobHttpRequestHandler {
         }
         // As long as the provider is set there may be more data to send (or a stream to terminate):
         // return a positive hint so produceResponse() gets triggered to do the actual work.
-        return stream != null ? 1 : 0;
+        // Nothing while the encoding thread prepares the next buffer: it asks for an output event.
+        DataToSendProvider provider = stream;
+        return provider != null && provider.isReady() ? 1 : 0;
     }
 
     @Override
     public void releaseResources() {
+        if (deadlineTimer != null) {
+            deadlineTimer.cancel(false);
+        }
+        leaveFlight();
+        if (metrics != null) {
+            metrics.completed(System.nanoTime() - startNanos, receivedBytes, sentBytes);
+        }
+        AccessLog accessLog = httpHandler.accessLog;
+        if (accessLog != null) {
+            EndpointDetails endpoint = context instanceof HttpCoreContext coreContext ? coreContext.getEndpointDetails() : null;
+            accessLog.log(route, operation.verb().name(), responseStatus, System.nanoTime() - startNanos,
+                    receivedBytes, sentBytes, endpoint != null ? endpoint.getRemoteAddress() : null);
+        }
+        AdaptiveLimiter.Permit held = permit;
+        if (held != null) {
+            held.abandon(); // no-op if released with the handler latency
+        }
+        Runnable handler = queuedHandler;
+        if (handler != null) {
+            operation.getPolicies().bulkhead().cancel(handler);
+        }
+        if (streamedBody != null) {
+            streamedBody.close();
+        }
+        MultiBufferOutputStream buffers = responseBuffers;
+        if (buffers != null) {
+            responseBuffers = null;
+            buffers.release();
+        }
+        PrefetchedChunks chunks = responseChunks;
+        if (chunks != null) {
+            chunks.close(); // the globs are closed once the encoding thread stops
+        }
+        HttpOutputData.GlobStreamHttpOutputData globs = responseGlobs;
+        if (globs != null && chunks == null) {
+            globs.close(); // the exchange may have been aborted before the end of the globs
+        }
+        FileRegions file = responseFile;
+        if (file != null) {
+            file.close(false);
+        }
     }
 
     @Override
     public void updateCapacityToReceiveData(CapacityChannel capacityChannel) {
-
+        receiveWindow.update(capacityChannel);
     }
 
     @Override
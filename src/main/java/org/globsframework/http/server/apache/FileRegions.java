@@ -0,0 +1,119 @@
+package org.globsframework.http.server.apache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Send a file (or a range of it) as memory mapped regions: the pages go from the page cache to the socket
+ * without being copied into the heap. The DataStreamChannel of httpcore only takes ByteBuffers, so this is
+ * the closest we can get to sendfile.
+ * <p>
+ * removeWhenDelivered: the file is deleted once its last byte has been written, if the whole file was sent.
+ */
+class FileRegions implements DefaultGlobHttpRequestHandler.DataToSendProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileRegions.class);
+    static final long REGION_SIZE = 4 * 1024 * 1024;
+    private final String serverInfo;
+    private final Path path;
+    private final FileChannel channel;
+    private final long end;
+    private final boolean removeWhenDelivered;
+    private long position;
+    private boolean closed;
+
+    FileRegions(String serverInfo, Path path, FileChannel channel, Range range, boolean removeWhenDelivered) {
+        this.serverInfo = serverInfo;
+        this.path = path;
+        this.channel = channel;
+        this.position = range.start();
+        this.end = range.end();
+        this.removeWhenDelivered = removeWhenDelivered;
+    }
+
+    public ByteBuffer nextBufferToSend() {
+        if (position >= end) {
+            close(removeWhenDelivered);
+            return null;
+        }
+        long length = Math.min(REGION_SIZE, end - position);
+        try {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return region;
+        } catch (IOException e) {
+            close(false);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void close(boolean delete) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+            if (delete) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOGGER.error("{} : fail to close {}", serverInfo, path, e);
+        }
+    }
+
+    /**
+     * @param start inclusive
+     * @param end   exclusive
+     */
+    record Range(long start, long end) {
+        static final Range UNSATISFIABLE = new Range(-1, -1);
+
+        long length() {
+            return end - start;
+        }
+
+        /**
+         * Single range of a Range header (RFC 9110 14.1.2).
+         *
+         * @return null if there is no range to apply (no header, several ranges, another unit, or a malformed
+         * value: the whole content is sent), UNSATISFIABLE if the range is outside the content.
+         */
+        static Range parse(String header, long size) {
+            if (header == null || !header.startsWith("bytes=") || header.indexOf(',') != -1) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0 || size == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new Range(Math.max(0, size - suffix), size);
+                }
+                long start = Long.parseLong(spec.substring(0, dash));
+                long last = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+                if (start >= size) {
+                    return UNSATISFIABLE;
+                }
+                if (last < start) {
+                    return null;
+                }
+                return new Range(start, Math.min(last, size - 1) + 1);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
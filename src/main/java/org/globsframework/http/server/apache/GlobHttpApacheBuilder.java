@@ -11,6 +11,7 @@ import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
 import org.apache.hc.core5.reactor.ListenerEndpoint;
 import org.globsframework.core.model.MutableGlob;
+import org.globsframework.http.ExecutionMode;
 import org.globsframework.http.HttpOperation;
 import org.globsframework.http.HttpServerRegister;
 import org.globsframework.json.GSonUtils;
@@ -20,7 +21,9 @@ import org.slf4j.LoggerFactory;
 import java.net.InetSocketAddress;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class GlobHttpApacheBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(GlobHttpApacheBuilder.class);
@@ -38,14 +41,17 @@ public class GlobHttpApacheBuilder {
     }
 
     public AsyncServerExchangeHandler createAsyncServerExchangeHandler(HttpRequest request, HttpContext context) {
-        return new HttpRequestHttpAsyncServerExchangeTree(dispatcher, request, context);
+        return new HttpRequestHttpAsyncServerExchangeTree(dispatcher, request, context, httpServerRegister.metrics,
+                httpServerRegister.accessLog);
     }
 
     private RequestDispatcher createDispatcher() {
         RequestDispatcher requestDispatcher = new RequestDispatcher(httpServerRegister.serverInfo);
+        GlobHttpRequestHandlerBuilder.ServerDefaults defaults = new GlobHttpRequestHandlerBuilder.ServerDefaults(
+                createDefaultExecutor(), httpServerRegister.adaptiveLimiter, httpServerRegister.metrics, httpServerRegister.accessLog);
         for (Map.Entry<String, HttpServerRegister.Verb> stringVerbEntry : httpServerRegister.verbMap.entrySet()) {
             HttpServerRegister.Verb verb = stringVerbEntry.getValue();
-            GlobHttpRequestHandlerBuilder globHttpRequestHandler = new GlobHttpRequestHandlerBuilder(httpServerRegister.serverInfo, verb.complete());
+            GlobHttpRequestHandlerBuilder globHttpRequestHandler = new GlobHttpRequestHandlerBuilder(httpServerRegister.serverInfo, verb.complete(), defaults);
             Collection<String> path = globHttpRequestHandler.createRegExp();
             requestDispatcher.register(path, globHttpRequestHandler);
 
@@ -63,6 +69,14 @@ public class GlobHttpApacheBuilder {
         return requestDispatcher;
     }
 
+    private Executor createDefaultExecutor() {
+        if (httpServerRegister.executionMode == ExecutionMode.VIRTUAL_THREADS) {
+            ThreadFactory threadFactory = Thread.ofVirtual().name(httpServerRegister.serverInfo + "-", 0).factory();
+            return command -> threadFactory.newThread(command).start();
+        }
+        return null;
+    }
+
     public Server startAndWaitForStartup(H2ServerBootstrap bootstrap, int wantedPort) {
         final HttpAsyncServer server = createH2Async(bootstrap);
         return initHttpServer(wantedPort, server, false);
@@ -120,7 +134,7 @@ public class GlobHttpApacheBuilder {
             InetSocketAddress address = (InetSocketAddress) listenerEndpoint.getAddress();
             int port = address.getPort();
             LOGGER.info(httpServerRegister.serverInfo);
-            return new Server(server, port);
+            return new Server(server, port, httpServerRegister.accessLog);
         } catch (Exception e) {
             String message = " Fail to start server" + httpServerRegister.serverInfo;
             LOGGER.error(message);
@@ -2,30 +2,30 @@ package org.globsframework.http.server.apache;
 
 import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.classic.methods.*;
+import org.apache.hc.core5.http.EndpointDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpException;
-import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
 import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
-import org.apache.hc.core5.net.WWWFormCodec;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
 import org.globsframework.core.metamodel.GlobType;
 import org.globsframework.core.metamodel.GlobTypeBuilder;
-import org.globsframework.core.metamodel.annotations.FieldName;
-import org.globsframework.core.metamodel.fields.Field;
 import org.globsframework.core.metamodel.impl.DefaultGlobTypeBuilder;
 import org.globsframework.core.model.Glob;
-import org.globsframework.core.model.MutableGlob;
 import org.globsframework.core.utils.Strings;
 import org.globsframework.http.*;
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.metrics.HttpMetrics;
+import org.globsframework.http.metrics.RouteMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 public class GlobHttpRequestHandlerBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(GlobHttpRequestHandlerBuilder.class);
@@ -39,6 +39,10 @@ public class GlobHttpRequestHandlerBuilder {
     private HttpHandler onGet;
     private HttpHandler onOption;
 
+    public String getUrl() {
+        return httpReceiver.getUrl();
+    }
+
     public boolean hasWildcardAtEnd() {
         return urlMatcher.withWildCard();
     }
@@ -49,31 +53,15 @@ public class GlobHttpRequestHandlerBuilder {
     }
 
     public static class DefaultParamProcessor implements ParamProcessor {
-        private final String serverInfo;
-        GlobType paramType;
-        Map<String, GlobHttpUtils.FromStringConverter> converterMap = new HashMap<>();
+        private final QueryParser queryParser;
 
         public DefaultParamProcessor(String serverInfo, GlobType paramType) {
-            this.serverInfo = serverInfo;
-            this.paramType = paramType;
-            for (Field field : paramType.getFields()) {
-                converterMap.put(FieldName.getName(field), GlobHttpUtils.createConverter(field, ","));
-            }
+            this.queryParser = new QueryParser(serverInfo, paramType);
         }
 
         public Glob treat(String queryParams) {
             if (Strings.isNotEmpty(queryParams)) {
-                MutableGlob instantiate = paramType.instantiateWithDefaults();
-                List<NameValuePair> parse = WWWFormCodec.parse(queryParams, StandardCharsets.UTF_8);
-                for (NameValuePair nameValuePair : parse) {
-                    GlobHttpUtils.FromStringConverter fromStringConverter = converterMap.get(nameValuePair.getName());
-                    if (fromStringConverter != null) {
-                        fromStringConverter.convert(instantiate, nameValuePair.getValue());
-                    } else {
-                        LOGGER.error("{} : unexpected param {}", serverInfo, nameValuePair.getName());
-                    }
-                }
-                return instantiate;
+                return queryParser.parse(queryParams);
             }
             return null;
         }
@@ -89,15 +77,39 @@ public class GlobHttpRequestHandlerBuilder {
     }
 
 
+    /**
+     * What the server gives to the operations that do not set it, each null if none.
+     */
+    public record ServerDefaults(Executor executor, AdaptiveLimiter adaptiveLimiter, HttpMetrics metrics,
+                                 AccessLog accessLog) {
+        public static final ServerDefaults NONE = new ServerDefaults(null, null, null, null);
+    }
+
     public static class HttpHandler {
-        private final String serverInfo;
+        final String serverInfo;
         public final HttpOperation operation;
         public final ParamProcessor paramProcessor;
+        // the settings of the operation, else the ones of the server: the operation is not modified
+        final Executor executor;
+        final boolean streamedBody;
+        final AdaptiveLimiter adaptiveLimiter;
+        final RouteMetrics metrics;
+        final AccessLog accessLog;
 
         public HttpHandler(String serverInfo, HttpOperation operation) {
+            this(serverInfo, null, operation, ServerDefaults.NONE);
+        }
+
+        public HttpHandler(String serverInfo, String url, HttpOperation operation, ServerDefaults defaults) {
             this.serverInfo = serverInfo;
             this.operation = operation;
             paramProcessor = operation.getQueryParamType() == null ? allHeaders -> null : new DefaultParamProcessor(this.serverInfo, operation.getQueryParamType());
+            executor = operation.hasExecutor() || defaults.executor() == null ? operation.getExecutor() : defaults.executor();
+            streamedBody = operation.hasStreamedBody() && executor != HttpOperation.INLINE_EXECUTOR;
+            AdaptiveLimiter ownLimiter = operation.getPolicies().adaptiveLimiter();
+            adaptiveLimiter = ownLimiter != null ? ownLimiter : defaults.adaptiveLimiter();
+            metrics = defaults.metrics() != null ? defaults.metrics().route(url, operation.verb()) : null;
+            accessLog = defaults.accessLog();
         }
 
         public Glob teatParam(String queryParam) {
@@ -106,17 +118,22 @@ public class GlobHttpRequestHandlerBuilder {
     }
 
     public GlobHttpRequestHandlerBuilder(String serverInfo, HttpReceiver httpReceiver) {
+        this(serverInfo, httpReceiver, ServerDefaults.NONE);
+    }
+
+    public GlobHttpRequestHandlerBuilder(String serverInfo, HttpReceiver httpReceiver, ServerDefaults defaults) {
         this.serverInfo = serverInfo;
         this.httpReceiver = httpReceiver;
         this.urlMatcher = DefaultUrlMatcher.create(httpReceiver.getUrlType(), httpReceiver.getUrl());
         for (HttpOperation operation : httpReceiver.getOperations()) {
+            HttpHandler handler = new HttpHandler(serverInfo, httpReceiver.getUrl(), operation, defaults);
             switch (operation.verb()) {
-                case post -> onPost = new HttpHandler(serverInfo, operation);
-                case put -> onPut = new HttpHandler(serverInfo, operation);
-                case patch -> onPatch = new HttpHandler(serverInfo, operation);
-                case delete -> onDelete = new HttpHandler(serverInfo, operation);
-                case get -> onGet = new HttpHandler(serverInfo, operation);
-                case option -> onOption = new HttpHandler(serverInfo, operation);
+                case post -> onPost = handler;
+                case put -> onPut = handler;
+                case patch -> onPatch = handler;
+                case delete -> onDelete = handler;
+                case get -> onGet = handler;
+                case option -> onOption = handler;
                 default -> throw new IllegalStateException("Unexpected value: " + operation.verb());
             }
         }
@@ -141,7 +158,12 @@ public class GlobHttpRequestHandlerBuilder {
         return matcher;
     }
 
-    public GlobHttpRequestHandlerFactory create(String[] path, String method, String paramStr, boolean hasBody) {
+    public GlobHttpRequestHandlerFactory create(PathSegments path, String method, String paramStr, boolean hasBody) {
+        return create(path, method, paramStr, hasBody, false);
+    }
+
+    public GlobHttpRequestHandlerFactory create(PathSegments path, String method, String paramStr, boolean hasBody,
+                                                boolean queryInBody) {
         if (method.equals(HttpHead.METHOD_NAME)) {
             return (request, entityDetails, responseChannel, context) ->
                     new ResponseGlobHttpRequestHandler(responseChannel, context, 403);
@@ -156,27 +178,61 @@ public class GlobHttpRequestHandlerBuilder {
             case HttpOptions.METHOD_NAME -> onOption;
             default -> throw new IllegalStateException("Unexpected value: " + method);
         };
+        if (queryInBody && (httpHandler == null || !httpHandler.operation.getPolicies().methodOverride())) {
+            return null;
+        }
         if (httpHandler == null) {
             if (method.equals(HttpOptions.METHOD_NAME)) {
                 return (request, entityDetails, responseChannel, context) ->
                         new ResponseGlobHttpRequestHandler(responseChannel, context, 200);
             }
-            throw new IllegalStateException("No route for " + String.join("/", path));
+            throw new IllegalStateException("No route for " + path);
+        }
+        if (queryInBody) {
+            // parsed once the body is received, with the query of the url if any
+            return (request, entityDetails, responseChannel, context) -> {
+                DefaultGlobHttpRequestHandler handler =
+                        new DefaultGlobHttpRequestHandler(httpHandler, httpReceiver.getUrl(), urlGlob, null, request, entityDetails, responseChannel, context);
+                handler.readQueryFromBody(body -> httpHandler.teatParam(Strings.isNotEmpty(paramStr) ? paramStr + "&" + body : body));
+                return handler;
+            };
         }
         Glob paramType = httpHandler.teatParam(paramStr);
         return (request, entityDetails, responseChannel, context) ->
-                new DefaultGlobHttpRequestHandler(httpHandler.operation, urlGlob, paramType, request, entityDetails, responseChannel, context);
+                new DefaultGlobHttpRequestHandler(httpHandler, httpReceiver.getUrl(), urlGlob, paramType, request, entityDetails, responseChannel, context);
     }
 
-    private static class ResponseGlobHttpRequestHandler implements GlobHttpRequestHandler {
+    static class ResponseGlobHttpRequestHandler implements GlobHttpRequestHandler {
         private final ResponseChannel responseChannel;
         private final HttpContext context;
         private final int code;
+        private final AccessLog accessLog;
+        private final String route;
+        private final String verb;
+        private final long startNanos = System.nanoTime();
+        private long receivedBytes;
 
         public ResponseGlobHttpRequestHandler(ResponseChannel responseChannel, HttpContext context, int code) {
+            this(responseChannel, context, code, null, null, null);
+        }
+
+        /**
+         * @param accessLog null if the exchange is not logged.
+         * @param route     null if no route matches the request.
+         */
+        public ResponseGlobHttpRequestHandler(ResponseChannel responseChannel, HttpContext context, int code,
+                                              AccessLog accessLog, String route, String verb) {
             this.responseChannel = responseChannel;
             this.context = context;
             this.code = code;
+            this.accessLog = accessLog;
+            this.route = route;
+            this.verb = verb;
+        }
+
+        @Override
+        public boolean admit() {
+            return true;
         }
 
         @Override
@@ -195,7 +251,7 @@ public class GlobHttpRequestHandlerBuilder {
 
         @Override
         public void consumeRequest(ByteBuffer src) {
-
+            receivedBytes += src.remaining();
         }
 
         @Override
@@ -208,13 +264,22 @@ public class GlobHttpRequestHandlerBuilder {
         }
 
         @Override
-        public void releaseResources() {
-
+        public GlobHttpRequestHandler rejected() {
+            return this;
         }
 
         @Override
-        public void updateCapacityToReceiveData(CapacityChannel capacityChannel) {
+        public void releaseResources() {
+            if (accessLog != null) {
+                EndpointDetails endpoint = context instanceof HttpCoreContext coreContext ? coreContext.getEndpointDetails() : null;
+                accessLog.log(route, verb, code, System.nanoTime() - startNanos, receivedBytes, 0,
+                        endpoint != null ? endpoint.getRemoteAddress() : null);
+            }
+        }
 
+        @Override
+        public void updateCapacityToReceiveData(CapacityChannel capacityChannel) throws IOException {
+            capacityChannel.update(Integer.MAX_VALUE); // body is ignored
         }
 
         @Override
@@ -0,0 +1,106 @@
+package org.globsframework.http.server.apache;
+
+import org.apache.hc.core5.http.Header;
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.fields.Field;
+import org.globsframework.core.model.Glob;
+import org.globsframework.core.model.MutableGlob;
+import org.globsframework.http.GlobHttpUtils;
+import org.globsframework.http.HttpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parser of the request headers into a header Glob, compiled once per GlobType.
+ * <p>
+ * Header names are case-insensitive (RFC 9110) and clients do not agree on a casing: the fields are found in an
+ * open addressing table hashed on the ASCII lower-cased chars of the name, and compared with equalsIgnoreCase, so
+ * no lower-cased copy of each header name is allocated. Values are converted by the GlobHttpUtils converter of
+ * the field (arrays are comma separated lists, repeated headers are appended).
+ */
+public class HeaderParser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeaderParser.class);
+    private static final Map<GlobType, HeaderParser> PARSERS = new ConcurrentHashMap<>();
+    private static final String LIST_SEPARATOR = "\\s*,\\s*";
+    private final GlobType type;
+    private final String[] names;
+    private final GlobHttpUtils.FromStringConverter[] converters;
+    private final int mask;
+
+    private HeaderParser(GlobType type) {
+        this.type = type;
+        Field[] fields = type.getFields();
+        int size = 2;
+        while (size < fields.length * 2) {
+            size <<= 1;
+        }
+        names = new String[size];
+        converters = new GlobHttpUtils.FromStringConverter[size];
+        mask = size - 1;
+        for (Field field : fields) {
+            GlobHttpUtils.FromStringConverter converter;
+            try {
+                converter = GlobHttpUtils.createConverter(field, LIST_SEPARATOR);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Header " + field.getFullName() + " ignored : type not managed " + field.getDataType());
+                continue;
+            }
+            int slot = hash(field.getName()) & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = field.getName();
+            converters[slot] = converter;
+        }
+    }
+
+    public static HeaderParser get(GlobType headerType) {
+        return PARSERS.computeIfAbsent(headerType, HeaderParser::new);
+    }
+
+    /**
+     * @throws HttpException 400 if a value can not be converted to the type of its field.
+     */
+    public Glob parse(Header[] headers) {
+        MutableGlob instance = type.instantiate();
+        for (Header header : headers) {
+            int slot = find(header.getName());
+            if (slot != -1) {
+                try {
+                    converters[slot].convert(instance, header.getValue());
+                } catch (RuntimeException e) {
+                    throw new HttpException(400, "Invalid header " + header.getName() + " : " + header.getValue());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private int find(String name) {
+        int slot = hash(name) & mask;
+        String candidate;
+        while ((candidate = names[slot]) != null) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // header names are ASCII tokens
+    static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+}
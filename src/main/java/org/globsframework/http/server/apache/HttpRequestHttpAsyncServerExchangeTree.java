@@ -4,7 +4,7 @@ import org.apache.hc.core5.http.EntityDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpRequest;
-import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
@@ -12,50 +12,112 @@ import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.globsframework.http.GlobHttpRequestHandler;
 import org.globsframework.http.GlobHttpRequestHandlerFactory;
+import org.globsframework.http.GlobHttpUtils;
+import org.globsframework.http.PathSegments;
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.metrics.HttpMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Locale;
 
 public class HttpRequestHttpAsyncServerExchangeTree implements AsyncServerExchangeHandler {
     public static final Logger LOGGER = LoggerFactory.getLogger(HttpRequestHttpAsyncServerExchangeTree.class);
+    // handleRequest runs on an I/O reactor thread and the segments are only read while dispatching:
+    // one instance per thread is enough.
+    private static final ThreadLocal<PathSegments> PATH_SEGMENTS = ThreadLocal.withInitial(PathSegments::new);
     private final RequestDispatcher requestDispatcher;
     private final HttpRequest request;
+    private final HttpMetrics metrics;
+    private final AccessLog accessLog;
     private HttpContext context;
     private GlobHttpRequestHandlerFactory globHttpRequestHandlerFactory;
     private GlobHttpRequestHandler globHttpRequestHandler;
 
     public HttpRequestHttpAsyncServerExchangeTree(RequestDispatcher requestDispatcher,
                                                   HttpRequest request, HttpContext context) {
+        this(requestDispatcher, request, context, null);
+    }
+
+    /**
+     * @param metrics null if the metrics are not enabled.
+     */
+    public HttpRequestHttpAsyncServerExchangeTree(RequestDispatcher requestDispatcher,
+                                                  HttpRequest request, HttpContext context, HttpMetrics metrics) {
+        this(requestDispatcher, request, context, metrics, null);
+    }
+
+    /**
+     * @param accessLog null if the requests matching no route are not logged.
+     */
+    public HttpRequestHttpAsyncServerExchangeTree(RequestDispatcher requestDispatcher, HttpRequest request,
+                                                  HttpContext context, HttpMetrics metrics, AccessLog accessLog) {
         this.requestDispatcher = requestDispatcher;
         this.request = request;
         this.context = context;
+        this.metrics = metrics;
+        this.accessLog = accessLog;
     }
 
     public void handleRequest(HttpRequest request, EntityDetails entityDetails, ResponseChannel responseChannel, HttpContext context) throws HttpException, IOException {
         assert this.context == context;
         assert this.request == request;
-        String path = request.getPath();
-        int i = path.indexOf("?");
-        String urlStr = path.substring(1, i == -1 ? path.length() : i); // remove first /
-        String paramStr = i == -1 ? null : path.substring(i + 1);
-        String[] split = urlStr.split("/");
+        PathSegments segments = PATH_SEGMENTS.get().parse(request.getPath());
         if (globHttpRequestHandlerFactory != null) {
             throw new RuntimeException("Bug : duplicate call to handleRequest");
         }
-        globHttpRequestHandlerFactory = requestDispatcher.createHandler(split, request.getMethod(), paramStr, entityDetails != null);
+        String overriddenMethod = queryInBody(request, entityDetails);
+        if (overriddenMethod != null) {
+            globHttpRequestHandlerFactory = requestDispatcher.createHandler(segments, overriddenMethod, segments.query(), true, true);
+        }
+        if (globHttpRequestHandlerFactory == null) {
+            // the header is ignored by the operations that do not accept it
+            globHttpRequestHandlerFactory = requestDispatcher.createHandler(segments, request.getMethod(), segments.query(), entityDetails != null, false);
+        }
         if (globHttpRequestHandlerFactory == null) {
-            responseChannel.sendResponse(new BasicHttpResponse(403), null, context);
+            if (metrics != null) {
+                metrics.unmatched();
+            }
+            globHttpRequestHandler = new GlobHttpRequestHandlerBuilder.ResponseGlobHttpRequestHandler(responseChannel, context, 403,
+                    accessLog, null, request.getMethod().toLowerCase(Locale.ROOT));
+            globHttpRequestHandler.callHandler();
             return;
         }
         globHttpRequestHandler = globHttpRequestHandlerFactory.create(request, entityDetails, responseChannel, context);
+        if (!globHttpRequestHandler.admit()) {
+            // shed before the body is buffered: it is read and dropped
+            LOGGER.debug("Request rejected, concurrency limit reached : {}", request.getPath());
+            globHttpRequestHandler = globHttpRequestHandler.rejected();
+            globHttpRequestHandler.callHandler();
+            return;
+        }
         if (entityDetails == null || entityDetails.getContentLength() == 0) {
             globHttpRequestHandler.callHandler();
         }
     }
 
+    // a GET or DELETE whose query was too long for the url, sent by the client as a POST of a form
+    private static String queryInBody(HttpRequest request, EntityDetails entityDetails) {
+        if (entityDetails == null || !Method.POST.isSame(request.getMethod())) {
+            return null;
+        }
+        Header header = request.getFirstHeader(GlobHttpUtils.METHOD_OVERRIDE_HEADER);
+        if (header == null || entityDetails.getContentType() == null
+            || !entityDetails.getContentType().startsWith("application/x-www-form-urlencoded")) {
+            return null;
+        }
+        if (Method.GET.isSame(header.getValue())) {
+            return Method.GET.name();
+        }
+        if (Method.DELETE.isSame(header.getValue())) {
+            return Method.DELETE.name();
+        }
+        return null;
+    }
+
     public void failed(Exception cause) {
         globHttpRequestHandler.failed(cause);
     }
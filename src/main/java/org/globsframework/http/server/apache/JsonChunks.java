@@ -0,0 +1,82 @@
+package org.globsframework.http.server.apache;
+
+import org.globsframework.core.model.Glob;
+import org.globsframework.json.GSonUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encode globs as a JSON array, or as NDJSON (one glob per line), chunk by chunk when the next buffer is asked
+ * for: only one chunk (a bit more than CHUNK_SIZE) is in memory at a time, and the globs are pulled from the
+ * iterator as the connection accepts data. Pulled by {@link PrefetchedChunks} on the executor of the operation,
+ * else by produceResponse on the reactor.
+ * <p>
+ * The returned buffer is reused for the next chunk, which is fine as produceResponse only asks for a new
+ * buffer once the previous one is fully written, and PrefetchedChunks copies it.
+ */
+class JsonChunks implements DefaultGlobHttpRequestHandler.DataToSendProvider {
+    static final int CHUNK_SIZE = 16 * 1024;
+    private final Iterator<Glob> globs;
+    private final boolean ndJson;
+    private final ChunkOutputStream chunk = new ChunkOutputStream();
+    private final Writer writer = new OutputStreamWriter(chunk, UTF_8);
+    private boolean started;
+    private boolean done;
+
+    JsonChunks(Iterator<Glob> globs, boolean ndJson) {
+        this.globs = globs;
+        this.ndJson = ndJson;
+    }
+
+    public ByteBuffer nextBufferToSend() {
+        if (done) {
+            return null;
+        }
+        chunk.reset();
+        try {
+            if (!started && !ndJson) {
+                writer.write('[');
+            }
+            while (chunk.size() < CHUNK_SIZE && globs.hasNext()) {
+                if (started && !ndJson) {
+                    writer.write(',');
+                }
+                started = true;
+                GSonUtils.encode(writer, globs.next(), false);
+                if (ndJson) {
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+            started = true;
+            if (!globs.hasNext()) {
+                if (!ndJson) {
+                    writer.write(']');
+                }
+                done = true;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(chunk.buffer(), 0, chunk.size());
+    }
+
+    private static class ChunkOutputStream extends ByteArrayOutputStream {
+        ChunkOutputStream() {
+            super(CHUNK_SIZE * 2);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
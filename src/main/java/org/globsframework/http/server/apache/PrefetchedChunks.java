@@ -0,0 +1,144 @@
+package org.globsframework.http.server.apache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Pull the chunks of a provider (a {@link JsonChunks}) on the executor of the operation instead of the I/O reactor:
+ * the globs of a stream may come from a database, and their encoding must not stall the other connections.
+ * <p>
+ * At most MAX_READY chunks are encoded ahead of the connection. When produceResponse finds none ready it gets
+ * {@link DefaultGlobHttpRequestHandler.DataToSendProvider#NOT_READY} and the reactor is asked for an output event
+ * (DataStreamChannel.requestOutput) once the next chunk is encoded.
+ * <p>
+ * {@link #close()} stops the encoding; onEnd is called once, by the encoding thread if it is running.
+ */
+class PrefetchedChunks implements DefaultGlobHttpRequestHandler.DataToSendProvider {
+    static final int MAX_READY = 2;
+    private final DefaultGlobHttpRequestHandler.DataToSendProvider source;
+    private final Executor executor;
+    private final Runnable outputReady;
+    private final Runnable onEnd;
+    private final ArrayDeque<ByteBuffer> ready = new ArrayDeque<>();
+    private boolean encoding;
+    private boolean waiting; // the reactor got NOT_READY, it waits for outputReady
+    private boolean done;
+    private boolean closed;
+    private RuntimeException failure;
+
+    /**
+     * @param source      its buffer may be reused between chunks: each one is copied.
+     * @param outputReady called from the encoding thread when a chunk is ready after NOT_READY was returned.
+     * @param onEnd       called once the source is consumed, has failed or is closed.
+     */
+    PrefetchedChunks(DefaultGlobHttpRequestHandler.DataToSendProvider source, Executor executor, Runnable outputReady,
+                     Runnable onEnd) {
+        this.source = source;
+        this.executor = executor;
+        this.outputReady = outputReady;
+        this.onEnd = onEnd;
+    }
+
+    // encode the first chunks while the response head is sent
+    void start() {
+        synchronized (this) {
+            encoding = true;
+        }
+        executor.execute(this::encode);
+    }
+
+    public ByteBuffer nextBufferToSend() {
+        boolean resume;
+        ByteBuffer next;
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            next = ready.poll();
+            if (next == null) {
+                if (done) {
+                    return null;
+                }
+                waiting = true;
+                next = NOT_READY;
+            }
+            resume = !encoding && !done && !closed;
+            if (resume) {
+                encoding = true;
+            }
+        }
+        if (resume) {
+            executor.execute(this::encode);
+        }
+        return next;
+    }
+
+    public synchronized boolean isReady() {
+        return !ready.isEmpty() || done || failure != null;
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ready.clear();
+            if (encoding || done || failure != null) {
+                return; // ended by the encoding thread, or already ended
+            }
+        }
+        onEnd.run();
+    }
+
+    private void encode() {
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    encoding = false;
+                    break;
+                }
+                if (ready.size() >= MAX_READY) {
+                    encoding = false;
+                    return;
+                }
+            }
+            ByteBuffer chunk;
+            try {
+                chunk = source.nextBufferToSend();
+            } catch (RuntimeException e) {
+                boolean notify;
+                synchronized (this) {
+                    failure = e;
+                    encoding = false;
+                    notify = waiting;
+                    waiting = false;
+                }
+                onEnd.run();
+                if (notify) {
+                    outputReady.run();
+                }
+                return;
+            }
+            boolean notify;
+            synchronized (this) {
+                if (chunk == null) {
+                    done = true;
+                    encoding = false;
+                } else if (!closed) {
+                    ready.add(ByteBuffer.allocate(chunk.remaining()).put(chunk).flip());
+                }
+                notify = waiting;
+                waiting = false;
+            }
+            if (notify) {
+                outputReady.run();
+            }
+            if (chunk == null) {
+                break;
+            }
+        }
+        onEnd.run();
+    }
+}
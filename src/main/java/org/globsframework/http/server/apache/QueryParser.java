@@ -0,0 +1,224 @@
+package org.globsframework.http.server.apache;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.annotations.FieldName;
+import org.globsframework.core.metamodel.fields.Field;
+import org.globsframework.core.model.MutableGlob;
+import org.globsframework.http.GlobHttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser of a query string (application/x-www-form-urlencoded) into a query Glob, compiled once per GlobType.
+ * <p>
+ * The query is scanned once: names are hashed in place and looked up in a hash table of the field names (its seed
+ * is searched at construction so that no two names share a slot; if there is none for a large type, the names are
+ * placed by linear probing as in HeaderParser), values are only
+ * percent-decoded if they contain a '%' or a '+', and go straight to the converter of their field. The values of
+ * array fields are accumulated over the repeated parameters and set once.
+ */
+public class QueryParser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryParser.class);
+    // the perfect hash table is searched up to this times the minimal size
+    private static final int MAX_PERFECT_GROWTH = 4;
+    private static final char SEPARATOR = ',';
+    private final String serverInfo;
+    private final GlobType type;
+    private final String[] names;
+    private final GlobHttpUtils.FromStringConverter[] converters;
+    private final Field[] arrayFields;
+    private final int seed;
+    private final int mask;
+
+    public QueryParser(String serverInfo, GlobType type) {
+        this.serverInfo = serverInfo;
+        this.type = type;
+        Field[] fields = type.getFields();
+        String[] fieldNames = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            fieldNames[i] = FieldName.getName(fields[i]);
+        }
+        int minSize = 2;
+        while (minSize < fields.length * 2) {
+            minSize <<= 1;
+        }
+        int size = minSize;
+        int foundSeed = findSeed(fieldNames, size - 1);
+        while (foundSeed == -1 && size < minSize * MAX_PERFECT_GROWTH) {
+            size <<= 1;
+            foundSeed = findSeed(fieldNames, size - 1);
+        }
+        if (foundSeed == -1) {
+            LOGGER.debug("{} : no perfect hash for the fields of {}, open addressing", serverInfo, type.getName());
+            size = minSize;
+            foundSeed = 0;
+        }
+        seed = foundSeed;
+        mask = size - 1;
+        names = new String[size];
+        converters = new GlobHttpUtils.FromStringConverter[size];
+        arrayFields = new Field[size];
+        for (int i = 0; i < fields.length; i++) {
+            int slot = hash(fieldNames[i], 0, fieldNames[i].length(), seed) & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = fieldNames[i];
+            if (GlobHttpUtils.createAccumulator(fields[i], SEPARATOR) != null) {
+                arrayFields[slot] = fields[i];
+            } else {
+                converters[slot] = GlobHttpUtils.createConverter(fields[i], ",");
+            }
+        }
+    }
+
+    private static int findSeed(String[] fieldNames, int mask) {
+        for (int candidate = 0; candidate < 256; candidate++) {
+            boolean[] used = new boolean[mask + 1];
+            boolean collision = false;
+            for (String name : fieldNames) {
+                int slot = hash(name, 0, name.length(), candidate) & mask;
+                if (used[slot]) {
+                    collision = true;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (!collision) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    public MutableGlob parse(String query) {
+        MutableGlob instance = type.instantiateWithDefaults();
+        GlobHttpUtils.ArrayAccumulator[] accumulators = null;
+        int length = query.length();
+        int start = 0;
+        int equal = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? query.charAt(i) : '&';
+            if (c == '=' && equal == -1) {
+                equal = i;
+            } else if (c == '&') {
+                if (i > start) {
+                    accumulators = addParam(instance, accumulators, query, start, equal == -1 ? i : equal, i);
+                }
+                start = i + 1;
+                equal = -1;
+            }
+        }
+        if (accumulators != null) {
+            for (GlobHttpUtils.ArrayAccumulator accumulator : accumulators) {
+                if (accumulator != null) {
+                    accumulator.set(instance);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // the values of array fields are accumulated, to be set once all the parameters are read
+    private GlobHttpUtils.ArrayAccumulator[] addParam(MutableGlob instance, GlobHttpUtils.ArrayAccumulator[] accumulators,
+                                                      String query, int start, int nameEnd, int end) {
+        int slot = find(query, start, nameEnd);
+        if (slot == -1) {
+            LOGGER.error("{} : unexpected param {}", serverInfo, decode(query, start, nameEnd));
+            return accumulators;
+        }
+        String value = nameEnd == end ? null : decode(query, nameEnd + 1, end);
+        if (arrayFields[slot] == null) {
+            converters[slot].convert(instance, value);
+        } else if (value != null) {
+            if (accumulators == null) {
+                accumulators = new GlobHttpUtils.ArrayAccumulator[names.length];
+            }
+            if (accumulators[slot] == null) {
+                accumulators[slot] = GlobHttpUtils.createAccumulator(arrayFields[slot], SEPARATOR);
+            }
+            accumulators[slot].add(value);
+        }
+        return accumulators;
+    }
+
+    private int find(String query, int start, int end) {
+        if (needDecoding(query, start, end)) {
+            String name = decode(query, start, end);
+            return lookup(name, 0, name.length());
+        }
+        return lookup(query, start, end);
+    }
+
+    // a single probe for the names of a perfect hash table, linear probing otherwise
+    private int lookup(String query, int start, int end) {
+        int slot = hash(query, start, end, seed) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name.length() == end - start && query.regionMatches(start, name, 0, name.length())) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(String str, int start, int end, int seed) {
+        int h = seed;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + str.charAt(i);
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static boolean needDecoding(String str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Percent-decode (UTF-8) and '+' as space, as WWWFormCodec; a '%' not followed by two hex digits is kept.
+     */
+    static String decode(String str, int start, int end) {
+        if (!needDecoding(str, start, end)) {
+            return str.substring(start, end);
+        }
+        byte[] bytes = new byte[(end - start) * 3];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c == '+') {
+                bytes[length++] = ' ';
+            } else if (c == '%' && isHex(str, i + 1, end) && isHex(str, i + 2, end)) {
+                bytes[length++] = (byte) ((Character.digit(str.charAt(i + 1), 16) << 4) + Character.digit(str.charAt(i + 2), 16));
+                i += 2;
+            } else if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else {
+                // not percent-encoded: kept as is, in UTF-8 like the decoded bytes
+                int codePoint = Character.codePointAt(str, i);
+                if (Character.charCount(codePoint) == 2) {
+                    i++;
+                }
+                byte[] encoded = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                length += encoded.length;
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isHex(String str, int index, int end) {
+        return index < end && Character.digit(str.charAt(index), 16) != -1;
+    }
+}
@@ -0,0 +1,59 @@
+package org.globsframework.http.server.apache;
+
+import org.apache.hc.core5.http.nio.CapacityChannel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Bounded receive window of one exchange: the reactor is only allowed to push {@code size} bytes that have not
+ * yet been drained by the consumer of the body. Capacity is given back through the {@link CapacityChannel} as
+ * the data is released, so a slow consumer stops the reads on the connection (TCP window for HTTP/1.1, stream
+ * window for HTTP/2) instead of having the server buffer the body.
+ * <p>
+ * {@link #received(int)} is called on the reactor thread, {@link #released(int)} from whichever thread drains
+ * the data.
+ */
+public class ReceiveWindow {
+    private final int size;
+    private CapacityChannel channel;
+    private long granted; // signaled to the reactor and not yet received
+    private long buffered; // received and not yet released
+
+    public ReceiveWindow(int size) {
+        this.size = size;
+    }
+
+    public synchronized void update(CapacityChannel channel) {
+        this.channel = channel;
+        signal();
+    }
+
+    public synchronized void received(int count) {
+        granted = Math.max(0, granted - count);
+        buffered += count;
+    }
+
+    public synchronized void released(int count) {
+        buffered = Math.max(0, buffered - count);
+        signal();
+    }
+
+    synchronized long buffered() {
+        return buffered;
+    }
+
+    // small increments are delayed until at least half of the window is free, to not signal on each read
+    private void signal() {
+        long increment = size - buffered - granted;
+        if (channel == null || increment <= 0 || increment < size / 2) {
+            return;
+        }
+        granted += increment;
+        try {
+            channel.update((int) increment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
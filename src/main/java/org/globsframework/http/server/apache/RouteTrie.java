@@ -0,0 +1,199 @@
+package org.globsframework.http.server.apache;
+
+import org.globsframework.http.PathSegments;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Segment trie over the registered url templates: one node per path segment, literal children in a hash table,
+ * a single child for {@code {param}} segments, and the routes ending with a wildcard (array) parameter hung on
+ * the node of their last fixed segment. A lookup walks the request path once, so its cost depends on the path
+ * depth and not on the number of registered routes. Literal children are looked up directly on the
+ * {@link PathSegments} offsets: no segment is extracted from the request path to be matched.
+ * <p>
+ * Precedence is the one of the former linear scan: an exact route (same number of segments) always wins over
+ * a wildcard one; among wildcard routes the one with the most fixed segments wins; and between routes of the
+ * same kind and length the first registered wins. That last rule is why both the literal and the parameter
+ * child are visited when a node has both.
+ */
+public class RouteTrie<T> {
+    private final Node<T> root = new Node<>();
+    private int registered;
+
+    /**
+     * @param path     the template segments, {@code null} standing for a parameter
+     * @param wildcard true if the last segment is an array parameter taking all the remaining segments
+     */
+    public void register(Collection<String> path, boolean wildcard, T value) {
+        int fixedSegments = wildcard ? path.size() - 1 : path.size();
+        Node<T> node = root;
+        Iterator<String> iterator = path.iterator();
+        for (int i = 0; i < fixedSegments; i++) {
+            String segment = iterator.next();
+            node = segment == null ? node.paramChild() : node.literalChild(segment);
+        }
+        Route<T> route = new Route<>(value, fixedSegments, registered++);
+        if (wildcard) {
+            if (node.wildcard == null) {
+                node.wildcard = route;
+            }
+        } else if (node.exact == null) {
+            node.exact = route;
+        }
+    }
+
+    public T find(PathSegments path) {
+        Route<T> route = findExact(root, path, 0);
+        if (route == null) {
+            route = findWildcard(root, path, 0);
+        }
+        return route != null ? route.value : null;
+    }
+
+    private static <T> Route<T> findExact(Node<T> node, PathSegments path, int depth) {
+        if (depth == path.size()) {
+            return node.exact;
+        }
+        Route<T> found = null;
+        Node<T> literal = node.literals != null ? node.literals.get(path, depth) : null;
+        if (literal != null) {
+            found = findExact(literal, path, depth + 1);
+        }
+        if (node.param != null) {
+            found = firstRegistered(found, findExact(node.param, path, depth + 1));
+        }
+        return found;
+    }
+
+    private static <T> Route<T> findWildcard(Node<T> node, PathSegments path, int depth) {
+        if (depth >= path.size()) {
+            return null; // a wildcard takes at least one segment
+        }
+        Route<T> found = node.wildcard;
+        Node<T> literal = node.literals != null ? node.literals.get(path, depth) : null;
+        if (literal != null) {
+            found = mostSpecific(found, findWildcard(literal, path, depth + 1));
+        }
+        if (node.param != null) {
+            found = mostSpecific(found, findWildcard(node.param, path, depth + 1));
+        }
+        return found;
+    }
+
+    private static <T> Route<T> firstRegistered(Route<T> r1, Route<T> r2) {
+        if (r1 == null) {
+            return r2;
+        }
+        if (r2 == null) {
+            return r1;
+        }
+        return r1.order <= r2.order ? r1 : r2;
+    }
+
+    private static <T> Route<T> mostSpecific(Route<T> r1, Route<T> r2) {
+        if (r1 == null) {
+            return r2;
+        }
+        if (r2 == null) {
+            return r1;
+        }
+        if (r1.fixedSegments != r2.fixedSegments) {
+            return r1.fixedSegments > r2.fixedSegments ? r1 : r2;
+        }
+        return r1.order <= r2.order ? r1 : r2;
+    }
+
+    private record Route<T>(T value, int fixedSegments, int order) {
+    }
+
+    private static class Node<T> {
+        LiteralTable<T> literals;
+        Node<T> param;
+        Route<T> exact;
+        Route<T> wildcard;
+
+        Node<T> literalChild(String segment) {
+            if (literals == null) {
+                literals = new LiteralTable<>();
+            }
+            return literals.getOrCreate(segment);
+        }
+
+        Node<T> paramChild() {
+            if (param == null) {
+                param = new Node<>();
+            }
+            return param;
+        }
+    }
+
+    /**
+     * Open addressing table keyed by the segment String, probed with the hash of a region of the request path
+     * (same value as String.hashCode).
+     */
+    private static class LiteralTable<T> {
+        private String[] keys = new String[4];
+        private Node<T>[] nodes = newNodes(4);
+        private int size;
+
+        Node<T> get(PathSegments path, int index) {
+            int mask = keys.length - 1;
+            int length = path.length(index);
+            for (int i = spread(path.segmentHash(index)) & mask; ; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == length && path.segmentEquals(index, key)) {
+                    return nodes[i];
+                }
+            }
+        }
+
+        Node<T> getOrCreate(String segment) {
+            int mask = keys.length - 1;
+            int i = spread(segment.hashCode()) & mask;
+            while (keys[i] != null) {
+                if (keys[i].equals(segment)) {
+                    return nodes[i];
+                }
+                i = (i + 1) & mask;
+            }
+            Node<T> node = new Node<>();
+            keys[i] = segment;
+            nodes[i] = node;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return node;
+        }
+
+        private void rehash() {
+            String[] oldKeys = keys;
+            Node<T>[] oldNodes = nodes;
+            keys = new String[oldKeys.length * 2];
+            nodes = newNodes(oldKeys.length * 2);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null) {
+                    int i = spread(oldKeys[j].hashCode()) & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    nodes[i] = oldNodes[j];
+                }
+            }
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newNodes(int size) {
+            return (Node<T>[]) new Node[size];
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package org.globsframework.http.server.apache;
 
 import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.io.CloseMode;
+import org.globsframework.http.accesslog.AccessLog;
 
 public class Server {
     private final HttpAsyncServer server;
     private final int port;
+    private final AccessLog accessLog;
 
     public Server(HttpAsyncServer server, int port) {
+        this(server, port, null);
+    }
+
+    /**
+     * @param accessLog closed with the server, null if none.
+     */
+    public Server(HttpAsyncServer server, int port, AccessLog accessLog) {
         this.server = server;
         this.port = port;
+        this.accessLog = accessLog;
     }
 
     public int getPort() {
@@ -18,4 +29,15 @@ public class Server {
     public HttpAsyncServer getServer() {
         return server;
     }
+
+    /**
+     * Stop the server, letting the exchanges in progress complete, then write the remaining access log records and
+     * close it.
+     */
+    public void shutdown() {
+        server.close(CloseMode.GRACEFUL);
+        if (accessLog != null) {
+            accessLog.close();
+        }
+    }
 }
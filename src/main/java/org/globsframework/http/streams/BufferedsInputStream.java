@@ -4,13 +4,37 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
 
+/**
+ * InputStream fed by a producer thread (the reactor) while a consumer thread reads it. The reader blocks until a
+ * buffer is available.
+ * <p>
+ * onConsumed is called with the size of each buffer once it has been read, or dropped by close, so that the
+ * producer can give the capacity back to the peer.
+ * <p>
+ * A lock rather than a monitor: a virtual thread waiting on a monitor would pin its carrier thread.
+ */
 public class BufferedsInputStream extends InputStream {
     private static final byte[] LAST_EMPTY_BUFFER = new byte[0];
     private final Queue<byte[]> dataQueue = new LinkedList<>();
+    private final IntConsumer onConsumed;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
     private byte[] currentBuffer = null;
     private int currentIndex = 0; // Current position within the current buffer
-    private boolean closed = false;
+    private volatile boolean closed = false;
+
+    public BufferedsInputStream() {
+        this(size -> {
+        });
+    }
+
+    public BufferedsInputStream(IntConsumer onConsumed) {
+        this.onConsumed = onConsumed;
+    }
 
     public int read() {
         while (true) {
@@ -26,21 +50,33 @@ public class BufferedsInputStream extends InputStream {
         }
     }
 
-    private synchronized boolean readFromNextBuffer() {
-        while (!closed) {
-            if (!dataQueue.isEmpty()) {
-                currentBuffer = dataQueue.poll();
-                currentIndex = 0; // Reset index for the new buffer
-                return currentBuffer != LAST_EMPTY_BUFFER;
+    private boolean readFromNextBuffer() {
+        lock.lock();
+        try {
+            if (currentBuffer == LAST_EMPTY_BUFFER) {
+                return false;
+            }
+            if (currentBuffer != null && !closed) {
+                onConsumed.accept(currentBuffer.length);
+                currentBuffer = null;
             }
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Thread interrupted while reading", e);
+            while (!closed) {
+                if (!dataQueue.isEmpty()) {
+                    currentBuffer = dataQueue.poll();
+                    currentIndex = 0; // Reset index for the new buffer
+                    return currentBuffer != LAST_EMPTY_BUFFER;
+                }
+                try {
+                    dataAvailable.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Thread interrupted while reading", e);
+                }
             }
+            throw new IllegalStateException("Stream is closed");
+        } finally {
+            lock.unlock();
         }
-        throw new IllegalStateException("Stream is closed");
     }
 
     @Override
@@ -51,7 +87,9 @@ public class BufferedsInputStream extends InputStream {
         if (off < 0 || len < 0 || len > b.length - off) {
             throw new IndexOutOfBoundsException("Invalid offset or length");
         }
-
+        if (len == 0) {
+            return 0;
+        }
         if (closed) {
             throw new IllegalStateException("Stream is closed");
         }
@@ -73,23 +111,48 @@ public class BufferedsInputStream extends InputStream {
         return bytesRead;
     }
 
-    public synchronized void newBuffer(ByteBuffer byteBuffer, boolean lastBuffer) {
-        if (closed) {
-            throw new IllegalStateException("Stream is closed");
-        }
-        if (byteBuffer != null && byteBuffer.hasRemaining()) {
-            byte[] bytes = new byte[byteBuffer.remaining()];
-            byteBuffer.get(bytes);
-            dataQueue.add(bytes);
-        }
-        if (lastBuffer) {
-            dataQueue.add(LAST_EMPTY_BUFFER);
+    /**
+     * @return false if the stream was closed by the reader: the buffer is dropped.
+     */
+    public boolean newBuffer(ByteBuffer byteBuffer, boolean lastBuffer) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (byteBuffer != null && byteBuffer.hasRemaining()) {
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.get(bytes);
+                dataQueue.add(bytes);
+            }
+            if (lastBuffer) {
+                dataQueue.add(LAST_EMPTY_BUFFER);
+            }
+            dataAvailable.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
         }
-        notifyAll();
     }
 
-    public synchronized void close() {
-        closed = true;
-        notifyAll();
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            int dropped = currentBuffer != null ? currentBuffer.length : 0;
+            for (byte[] bytes : dataQueue) {
+                dropped += bytes.length;
+            }
+            dataQueue.clear();
+            if (dropped > 0) {
+                onConsumed.accept(dropped);
+            }
+            dataAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,121 @@
+package org.globsframework.http.streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write into pooled buffers, uncompressed until minSize bytes were written, then compressed: the bytes already
+ * written are compressed and released, the following ones go straight through the compressor. Small responses
+ * are so never compressed, and large ones are never held uncompressed.
+ */
+public class CompressingOutputStream extends OutputStream {
+    private final DirectBufferPool pool;
+    private final Encoding encoding;
+    private final int level;
+    private final int minSize;
+    private MultiBufferOutputStream plain;
+    private MultiBufferOutputStream compressed;
+    private DeflaterOutputStream compressor;
+    private Deflater deflater;
+    private long size;
+
+    public enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        public final String name;
+
+        Encoding(String name) {
+            this.name = name;
+        }
+    }
+
+    public CompressingOutputStream(DirectBufferPool pool, Encoding encoding, int level, int minSize) {
+        this.pool = pool;
+        this.encoding = encoding;
+        this.level = level;
+        this.minSize = minSize;
+        this.plain = new MultiBufferOutputStream(pool);
+    }
+
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        size += len;
+        if (compressor != null) {
+            compressor.write(b, off, len);
+            return;
+        }
+        plain.write(b, off, len);
+        if (plain.size() >= minSize) {
+            startCompression();
+        }
+    }
+
+    private void startCompression() throws IOException {
+        compressed = new MultiBufferOutputStream(pool);
+        if (encoding == Encoding.GZIP) {
+            compressor = new LevelGZIPOutputStream(compressed, level);
+        } else {
+            deflater = new Deflater(level);
+            compressor = new DeflaterOutputStream(compressed, deflater, 8192);
+        }
+        plain.close();
+        byte[] bytes = new byte[8192];
+        for (ByteBuffer buffer : plain.data()) {
+            while (buffer.hasRemaining()) {
+                int length = Math.min(bytes.length, buffer.remaining());
+                buffer.get(bytes, 0, length);
+                compressor.write(bytes, 0, length);
+            }
+        }
+        plain.release();
+        plain = null;
+    }
+
+    public void close() throws IOException {
+        if (compressor != null) {
+            compressor.close();
+            if (deflater != null) {
+                deflater.end(); // not ended by DeflaterOutputStream as we gave it
+            }
+        } else {
+            plain.close();
+        }
+    }
+
+    public boolean isCompressed() {
+        return compressor != null;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the number of bytes written, before compression.
+     */
+    public long uncompressedSize() {
+        return size;
+    }
+
+    /**
+     * @return the data to send, available once closed.
+     */
+    public MultiBufferOutputStream result() {
+        return compressor != null ? compressed : plain;
+    }
+
+    private static class LevelGZIPOutputStream extends GZIPOutputStream {
+        LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
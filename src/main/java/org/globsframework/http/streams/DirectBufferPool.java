@@ -0,0 +1,86 @@
+package org.globsframework.http.streams;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of direct buffers by power of two size classes, from 1KB to 1MB (the sizes used by
+ * {@link MultiBufferOutputStream}). Direct buffers are costly to allocate and are only freed by the GC cleaner:
+ * once the pool is warm, serving responses does not allocate any.
+ * <p>
+ * The retained memory is bounded by maxRetainedBytes: buffers released above it are left to the GC.
+ * Thread safe.
+ */
+public class DirectBufferPool {
+    public static final int MIN_CAPACITY = 1024;
+    public static final int MAX_CAPACITY = 1024 * 1024;
+    public static final DirectBufferPool SHARED = new DirectBufferPool(64L * 1024 * 1024);
+
+    private final Queue<ByteBuffer>[] sizeClasses;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        sizeClasses = new Queue[sizeClass(MAX_CAPACITY) + 1];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * @return a cleared direct buffer of capacity rounded up to the size class (at most MAX_CAPACITY).
+     */
+    public ByteBuffer acquire(int capacity) {
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = sizeClasses[sizeClass].poll();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-buffer.capacity());
+            hits.increment();
+            return buffer.clear();
+        }
+        misses.increment();
+        return ByteBuffer.allocateDirect(MIN_CAPACITY << sizeClass);
+    }
+
+    /**
+     * The buffer must not be used anymore by the caller.
+     */
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || Integer.bitCount(buffer.capacity()) != 1
+            || buffer.capacity() < MIN_CAPACITY || buffer.capacity() > MAX_CAPACITY) {
+            return; // not from this pool
+        }
+        if (retainedBytes.addAndGet(buffer.capacity()) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-buffer.capacity());
+            return;
+        }
+        sizeClasses[sizeClass(buffer.capacity())].offer(buffer);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long bytesRetained() {
+        return retainedBytes.get();
+    }
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= MIN_CAPACITY) {
+            return 0;
+        }
+        int rounded = Math.min(capacity, MAX_CAPACITY);
+        return 32 - Integer.numberOfLeadingZeros(rounded - 1) - 10;
+    }
+}
@@ -0,0 +1,706 @@
+package org.globsframework.http.streams;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.annotations.FieldName;
+import org.globsframework.core.metamodel.fields.*;
+import org.globsframework.core.model.Glob;
+import org.globsframework.core.model.MutableGlob;
+import org.globsframework.json.annottations.IsJsonContent;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Push based JSON to Glob decoder: the body is fed buffer by buffer as the reactor receives it, and the Glob is
+ * built as the tokens complete, so the request bytes are never kept. The memory used is the one of the Glob
+ * under construction plus the current token.
+ * <p>
+ * Only the field types whose JSON form is unambiguous are decoded here (strings, numbers, booleans, their
+ * arrays, and globs and glob arrays of such types): {@link #isSupported(GlobType)} tells whether a body type
+ * can use this decoder, the other ones keep the buffered {@code GSonUtils} path. Unknown names are skipped,
+ * as {@code GSonUtils} does.
+ * <p>
+ * Not thread safe: one instance per request, fed by one thread at a time.
+ */
+public class IncrementalGlobJsonDecoder {
+    private static final Map<GlobType, Optional<CompiledType>> COMPILED = new ConcurrentHashMap<>();
+
+    private static final int NONE = 0;
+    private static final int IN_STRING = 1;
+    private static final int IN_NUMBER = 2;
+    private static final int IN_LITERAL = 3;
+
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_NAME_OR_END = 1;
+    private static final int EXPECT_NAME = 2;
+    private static final int EXPECT_COLON = 3;
+    private static final int EXPECT_COMMA_OR_END = 4;
+    private static final int EXPECT_VALUE_OR_END = 5;
+    private static final int EXPECT_NOTHING = 6;
+
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    private final StringBuilder token = new StringBuilder();
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private byte[] containers = new byte[16];
+    private int depth;
+    private int expect = EXPECT_VALUE;
+    private int lexState = NONE;
+    private boolean stringIsName;
+    private boolean escape;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+    private int utf8Remaining;
+    private int codePoint;
+    private Glob result;
+
+    public IncrementalGlobJsonDecoder(GlobType type) {
+        CompiledType compiledType = compile(type)
+                .orElseThrow(() -> new IllegalArgumentException(type.getName() + " can not be decoded incrementally"));
+        frames.push(new Frame() {
+            Frame startObject() {
+                return new GlobFrame(compiledType, glob -> result = glob);
+            }
+
+            void nullValue() {
+            }
+        });
+    }
+
+    public static boolean isSupported(GlobType type) {
+        return compile(type).isPresent();
+    }
+
+    /**
+     * Consume all the remaining bytes of the buffer.
+     */
+    public void feed(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int end = buffer.arrayOffset() + buffer.limit();
+            for (int i = buffer.arrayOffset() + buffer.position(); i < end; i++) {
+                accept(array[i] & 0xFF);
+            }
+            buffer.position(buffer.limit());
+        } else {
+            while (buffer.hasRemaining()) {
+                accept(buffer.get() & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * To be called at the end of the body.
+     *
+     * @return the decoded Glob, or null if the body was blank
+     */
+    public Glob complete() {
+        if (lexState == IN_NUMBER) {
+            endNumber();
+        } else if (lexState == IN_LITERAL) {
+            endLiteral();
+        } else if (lexState == IN_STRING) {
+            throw error("unterminated string");
+        }
+        if (depth != 0) {
+            throw error("unexpected end of body");
+        }
+        return result;
+    }
+
+    private void accept(int c) {
+        if (lexState == IN_STRING) {
+            string(c);
+            return;
+        }
+        if (lexState == IN_NUMBER) {
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                token.append((char) c);
+                return;
+            }
+            endNumber();
+        } else if (lexState == IN_LITERAL) {
+            if (c >= 'a' && c <= 'z') {
+                token.append((char) c);
+                return;
+            }
+            endLiteral();
+        }
+        switch (c) {
+            case ' ', '\t', '\n', '\r' -> {
+            }
+            case '{' -> {
+                beginValue();
+                push(OBJECT, EXPECT_NAME_OR_END);
+                frames.push(frames.peek().startObject());
+            }
+            case '[' -> {
+                beginValue();
+                push(ARRAY, EXPECT_VALUE_OR_END);
+                frames.push(frames.peek().startArray());
+            }
+            case '}' -> {
+                if (depth == 0 || containers[depth - 1] != OBJECT || (expect != EXPECT_NAME_OR_END && expect != EXPECT_COMMA_OR_END)) {
+                    throw error("unexpected '}'");
+                }
+                depth--;
+                frames.pop().end();
+                afterValue();
+            }
+            case ']' -> {
+                if (depth == 0 || containers[depth - 1] != ARRAY || (expect != EXPECT_VALUE_OR_END && expect != EXPECT_COMMA_OR_END)) {
+                    throw error("unexpected ']'");
+                }
+                depth--;
+                frames.pop().end();
+                afterValue();
+            }
+            case ':' -> {
+                if (expect != EXPECT_COLON) {
+                    throw error("unexpected ':'");
+                }
+                expect = EXPECT_VALUE;
+            }
+            case ',' -> {
+                if (expect != EXPECT_COMMA_OR_END) {
+                    throw error("unexpected ','");
+                }
+                expect = containers[depth - 1] == OBJECT ? EXPECT_NAME : EXPECT_VALUE;
+            }
+            case '"' -> {
+                if (expect == EXPECT_NAME || expect == EXPECT_NAME_OR_END) {
+                    stringIsName = true;
+                } else {
+                    beginValue();
+                    stringIsName = false;
+                }
+                token.setLength(0);
+                lexState = IN_STRING;
+            }
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                beginValue();
+                token.setLength(0);
+                token.append((char) c);
+                lexState = IN_NUMBER;
+            }
+            case 't', 'f', 'n' -> {
+                beginValue();
+                token.setLength(0);
+                token.append((char) c);
+                lexState = IN_LITERAL;
+            }
+            default -> throw error("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void string(int c) {
+        if (utf8Remaining > 0) {
+            if ((c & 0xC0) == 0x80) {
+                codePoint = (codePoint << 6) | (c & 0x3F);
+                if (--utf8Remaining == 0) {
+                    token.appendCodePoint(codePoint);
+                }
+                return;
+            }
+            utf8Remaining = 0;
+            token.append('\uFFFD');
+        }
+        if (unicodeDigits >= 0) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw error("invalid unicode escape");
+            }
+            unicodeValue = unicodeValue * 16 + digit;
+            if (++unicodeDigits == 4) {
+                token.append((char) unicodeValue);
+                unicodeDigits = -1;
+            }
+        } else if (escape) {
+            escape = false;
+            switch (c) {
+                case '"', '\\', '/' -> token.append((char) c);
+                case 'b' -> token.append('\b');
+                case 'f' -> token.append('\f');
+                case 'n' -> token.append('\n');
+                case 'r' -> token.append('\r');
+                case 't' -> token.append('\t');
+                case 'u' -> {
+                    unicodeDigits = 0;
+                    unicodeValue = 0;
+                }
+                default -> throw error("invalid escape '\\" + (char) c + "'");
+            }
+        } else if (c == '"') {
+            lexState = NONE;
+            String value = token.toString();
+            if (stringIsName) {
+                frames.peek().name(value);
+                expect = EXPECT_COLON;
+            } else {
+                frames.peek().string(value);
+                afterValue();
+            }
+        } else if (c == '\\') {
+            escape = true;
+        } else if (c < 0x80) {
+            token.append((char) c);
+        } else if (c >= 0xF0) {
+            codePoint = c & 0x07;
+            utf8Remaining = 3;
+        } else if (c >= 0xE0) {
+            codePoint = c & 0x0F;
+            utf8Remaining = 2;
+        } else if (c >= 0xC0) {
+            codePoint = c & 0x1F;
+            utf8Remaining = 1;
+        } else {
+            token.append('\uFFFD');
+        }
+    }
+
+    private void endNumber() {
+        lexState = NONE;
+        frames.peek().number(token.toString());
+        afterValue();
+    }
+
+    private void endLiteral() {
+        lexState = NONE;
+        String literal = token.toString();
+        switch (literal) {
+            case "true" -> frames.peek().bool(true);
+            case "false" -> frames.peek().bool(false);
+            case "null" -> frames.peek().nullValue();
+            default -> throw error("unexpected literal '" + literal + "'");
+        }
+        afterValue();
+    }
+
+    private void beginValue() {
+        if (expect != EXPECT_VALUE && expect != EXPECT_VALUE_OR_END) {
+            throw error("unexpected value");
+        }
+    }
+
+    private void afterValue() {
+        expect = depth == 0 ? EXPECT_NOTHING : EXPECT_COMMA_OR_END;
+    }
+
+    private void push(byte container, int expected) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+        }
+        containers[depth++] = container;
+        expect = expected;
+    }
+
+    // an integral value in any notation (1.0, 1e3) is accepted, as by GSon; a fraction or an overflow is an error
+    private static long integral(String value, long min, long max) {
+        long parsed;
+        try {
+            parsed = value.indexOf('.') == -1 && value.indexOf('e') == -1 && value.indexOf('E') == -1 ?
+                    Long.parseLong(value) : new BigDecimal(value).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw error("invalid integer " + value);
+        }
+        if (parsed < min || parsed > max) {
+            throw error("invalid integer " + value);
+        }
+        return parsed;
+    }
+
+    private static int integer(String value) {
+        return (int) integral(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private static IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid json body : " + message);
+    }
+
+    private static Optional<CompiledType> compile(GlobType type) {
+        Optional<CompiledType> compiledType = COMPILED.get(type);
+        if (compiledType == null) {
+            Map<GlobType, CompiledType> inProgress = new HashMap<>();
+            compiledType = compile(type, inProgress);
+            // the types of a cycle reference each other's decoders: they are all usable or none is
+            for (Map.Entry<GlobType, CompiledType> entry : inProgress.entrySet()) {
+                COMPILED.put(entry.getKey(), compiledType.isPresent() ? Optional.of(entry.getValue()) : Optional.empty());
+            }
+        }
+        return compiledType;
+    }
+
+    // types referencing each other are compiled together: the ones being compiled are looked up in inProgress
+    private static Optional<CompiledType> compile(GlobType type, Map<GlobType, CompiledType> inProgress) {
+        Optional<CompiledType> known = COMPILED.get(type);
+        if (known != null) {
+            return known;
+        }
+        CompiledType pending = inProgress.get(type);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        CompiledType compiledType = new CompiledType(type);
+        inProgress.put(type, compiledType);
+        for (Field field : type.getFields()) {
+            FieldDecoder decoder = createDecoder(field, inProgress);
+            if (decoder == null) {
+                return Optional.empty();
+            }
+            compiledType.decoders.put(field.getName(), decoder);
+            compiledType.decoders.put(FieldName.getName(field), decoder);
+        }
+        return Optional.of(compiledType);
+    }
+
+    private static FieldDecoder createDecoder(Field field, Map<GlobType, CompiledType> inProgress) {
+        if (field.hasAnnotation(IsJsonContent.UNIQUE_GLOB.getKey())) {
+            return null;
+        }
+        DecoderBuilder builder = new DecoderBuilder(inProgress);
+        try {
+            field.accept(builder);
+        } catch (Exception e) {
+            return null; // not managed here
+        }
+        return builder.decoder;
+    }
+
+    private static class DecoderBuilder extends FieldVisitor.AbstractWithErrorVisitor {
+        private final Map<GlobType, CompiledType> inProgress;
+        FieldDecoder decoder;
+
+        DecoderBuilder(Map<GlobType, CompiledType> inProgress) {
+            this.inProgress = inProgress;
+        }
+
+        public void visitString(StringField field) {
+            decoder = new FieldDecoder() {
+                void string(MutableGlob glob, String value) {
+                    glob.set(field, value);
+                }
+            };
+        }
+
+        public void visitInteger(IntegerField field) {
+            decoder = new FieldDecoder() {
+                void number(MutableGlob glob, String value) {
+                    glob.set(field, integer(value));
+                }
+            };
+        }
+
+        public void visitLong(LongField field) {
+            decoder = new FieldDecoder() {
+                void number(MutableGlob glob, String value) {
+                    glob.set(field, integral(value, Long.MIN_VALUE, Long.MAX_VALUE));
+                }
+            };
+        }
+
+        public void visitDouble(DoubleField field) {
+            decoder = new FieldDecoder() {
+                void number(MutableGlob glob, String value) {
+                    glob.set(field, Double.parseDouble(value));
+                }
+            };
+        }
+
+        public void visitBigDecimal(BigDecimalField field) {
+            decoder = new FieldDecoder() {
+                void number(MutableGlob glob, String value) {
+                    glob.set(field, new BigDecimal(value));
+                }
+            };
+        }
+
+        public void visitBoolean(BooleanField field) {
+            decoder = new FieldDecoder() {
+                void bool(MutableGlob glob, boolean value) {
+                    glob.set(field, value);
+                }
+
+                void string(MutableGlob glob, String value) {
+                    glob.set(field, Boolean.parseBoolean(value));
+                }
+            };
+        }
+
+        public void visitStringArray(StringArrayField field) {
+            decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    List<String> values = new ArrayList<>();
+                    return new Frame() {
+                        void string(String value) {
+                            values.add(value);
+                        }
+
+                        void end() {
+                            glob.set(field, values.toArray(String[]::new));
+                        }
+                    };
+                }
+            };
+        }
+
+        public void visitLongArray(LongArrayField field) {
+            decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    return new Frame() {
+                        long[] values = new long[8];
+                        int size;
+
+                        void number(String value) {
+                            if (size == values.length) {
+                                values = Arrays.copyOf(values, size * 2);
+                            }
+                            values[size++] = integral(value, Long.MIN_VALUE, Long.MAX_VALUE);
+                        }
+
+                        void end() {
+                            glob.set(field, Arrays.copyOf(values, size));
+                        }
+                    };
+                }
+            };
+        }
+
+        public void visitIntegerArray(IntegerArrayField field) {
+            decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    return new Frame() {
+                        int[] values = new int[8];
+                        int size;
+
+                        void number(String value) {
+                            if (size == values.length) {
+                                values = Arrays.copyOf(values, size * 2);
+                            }
+                            values[size++] = integer(value);
+                        }
+
+                        void end() {
+                            glob.set(field, Arrays.copyOf(values, size));
+                        }
+                    };
+                }
+            };
+        }
+
+        public void visitDoubleArray(DoubleArrayField field) {
+            decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    return new Frame() {
+                        double[] values = new double[8];
+                        int size;
+
+                        void number(String value) {
+                            if (size == values.length) {
+                                values = Arrays.copyOf(values, size * 2);
+                            }
+                            values[size++] = Double.parseDouble(value);
+                        }
+
+                        void end() {
+                            glob.set(field, Arrays.copyOf(values, size));
+                        }
+                    };
+                }
+            };
+        }
+
+        public void visitBooleanArray(BooleanArrayField field) {
+            decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    return new Frame() {
+                        boolean[] values = new boolean[8];
+                        int size;
+
+                        void bool(boolean value) {
+                            if (size == values.length) {
+                                values = Arrays.copyOf(values, size * 2);
+                            }
+                            values[size++] = value;
+                        }
+
+                        void end() {
+                            glob.set(field, Arrays.copyOf(values, size));
+                        }
+                    };
+                }
+            };
+        }
+
+        public void visitGlob(GlobField<?> field) {
+            compile(field.getTargetType(), inProgress).ifPresent(compiledType -> decoder = new FieldDecoder() {
+                Frame startObject(MutableGlob glob) {
+                    return new GlobFrame(compiledType, value -> glob.set(field, value));
+                }
+            });
+        }
+
+        public void visitGlobArray(GlobArrayField<?> field) {
+            compile(field.getTargetType(), inProgress).ifPresent(compiledType -> decoder = new FieldDecoder() {
+                Frame startArray(MutableGlob glob) {
+                    List<Glob> values = new ArrayList<>();
+                    return new Frame() {
+                        Frame startObject() {
+                            return new GlobFrame(compiledType, values::add);
+                        }
+
+                        void end() {
+                            glob.set(field, values.toArray(Glob[]::new));
+                        }
+                    };
+                }
+            });
+        }
+    }
+
+    private static class CompiledType {
+        final GlobType type;
+        final Map<String, FieldDecoder> decoders = new HashMap<>();
+
+        CompiledType(GlobType type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * How the JSON value of one field is set on the Glob being built. A JSON null leaves the field unset.
+     */
+    private abstract static class FieldDecoder {
+        void string(MutableGlob glob, String value) {
+            number(glob, value);
+        }
+
+        void number(MutableGlob glob, String value) {
+            throw error("unexpected value " + value);
+        }
+
+        void bool(MutableGlob glob, boolean value) {
+            throw error("unexpected boolean");
+        }
+
+        Frame startObject(MutableGlob glob) {
+            throw error("unexpected object");
+        }
+
+        Frame startArray(MutableGlob glob) {
+            throw error("unexpected array");
+        }
+    }
+
+    /**
+     * The object or array being read. A JSON null is rejected in the arrays, which can not hold it.
+     */
+    private abstract static class Frame {
+        void name(String name) {
+            throw error("unexpected name " + name);
+        }
+
+        void string(String value) {
+            number(value);
+        }
+
+        void number(String value) {
+            throw error("unexpected value " + value);
+        }
+
+        void bool(boolean value) {
+            throw error("unexpected boolean");
+        }
+
+        void nullValue() {
+            throw error("unexpected null");
+        }
+
+        Frame startObject() {
+            throw error("unexpected object");
+        }
+
+        Frame startArray() {
+            throw error("unexpected array");
+        }
+
+        void end() {
+        }
+    }
+
+    private static final Frame SKIP = new Frame() {
+        void name(String name) {
+        }
+
+        void number(String value) {
+        }
+
+        void bool(boolean value) {
+        }
+
+        void nullValue() {
+        }
+
+        Frame startObject() {
+            return this;
+        }
+
+        Frame startArray() {
+            return this;
+        }
+    };
+
+    private static class GlobFrame extends Frame {
+        private final CompiledType compiledType;
+        private final Consumer<Glob> onEnd;
+        private final MutableGlob glob;
+        private FieldDecoder current;
+
+        GlobFrame(CompiledType compiledType, Consumer<Glob> onEnd) {
+            this.compiledType = compiledType;
+            this.onEnd = onEnd;
+            this.glob = compiledType.type.instantiate();
+        }
+
+        void name(String name) {
+            current = compiledType.decoders.get(name);
+        }
+
+        void string(String value) {
+            if (current != null) {
+                current.string(glob, value);
+            }
+        }
+
+        void number(String value) {
+            if (current != null) {
+                current.number(glob, value);
+            }
+        }
+
+        void bool(boolean value) {
+            if (current != null) {
+                current.bool(glob, value);
+            }
+        }
+
+        void nullValue() {
+            // the field is left unset
+        }
+
+        Frame startObject() {
+            return current != null ? current.startObject(glob) : SKIP;
+        }
+
+        Frame startArray() {
+            return current != null ? current.startArray(glob) : SKIP;
+        }
+
+        void end() {
+            onEnd.accept(glob);
+        }
+    }
+}
@@ -3,22 +3,32 @@ package org.globsframework.http.streams;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MultiBufferOutputStream extends OutputStream {
+    private final DirectBufferPool pool;
     int size = 0;
-    List<ByteBuffer> buffers = new LinkedList<>();
-    ByteBuffer currentBuffer = ByteBuffer.allocateDirect(1024);
+    List<ByteBuffer> buffers = new ArrayList<>();
+    ByteBuffer currentBuffer;
 
     public MultiBufferOutputStream() {
+        this(null);
+    }
+
+    /**
+     * @param pool the buffers are taken from it, and given back by {@link #release()}.
+     */
+    public MultiBufferOutputStream(DirectBufferPool pool) {
+        this.pool = pool;
+        currentBuffer = allocate(1024);
         buffers.add(currentBuffer);
     }
 
     public void write(int i) throws IOException {
         if (currentBuffer.remaining() == 0) {
             currentBuffer.flip();
-            currentBuffer = ByteBuffer.allocateDirect(getCapacity());
+            currentBuffer = allocate(getCapacity());
             buffers.add(currentBuffer);
         }
         currentBuffer.put((byte)i);
@@ -29,13 +39,18 @@ public class MultiBufferOutputStream extends OutputStream {
         return Math.min(currentBuffer.capacity() * 2, 1024 * 1024);
     }
 
+    private ByteBuffer allocate(int capacity) {
+        return pool != null ? pool.acquire(capacity) : ByteBuffer.allocateDirect(capacity);
+    }
+
     public void write(byte[] b, int off, int len) throws IOException {
         while (len > 0) {
             int remaining = currentBuffer.remaining();
             if (remaining == 0) {
                 currentBuffer.flip();
-                currentBuffer = ByteBuffer.allocateDirect(getCapacity());
+                currentBuffer = allocate(getCapacity());
                 buffers.add(currentBuffer);
+                remaining = currentBuffer.remaining();
             }
             int write = Math.min(len, remaining);
             currentBuffer.put(b, off, write);
@@ -56,4 +71,14 @@ public class MultiBufferOutputStream extends OutputStream {
     public List<ByteBuffer> data() {
         return buffers;
     }
+
+    /**
+     * Give the buffers back to the pool: the data must not be used anymore.
+     */
+    public void release() {
+        if (pool != null) {
+            buffers.forEach(pool::release);
+        }
+        buffers.clear();
+    }
 }
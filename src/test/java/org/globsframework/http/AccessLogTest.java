@@ -0,0 +1,72 @@
+package org.globsframework.http;
+
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.accesslog.AccessLogFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AccessLogTest {
+
+    @Test
+    public void formatsOneLinePerExchange() {
+        StringWriter writer = new StringWriter();
+        AccessLog accessLog = new AccessLog(writer, AccessLogFormat.pattern("%a %m %r %s %D %i %o 100%%"), 16);
+        Assert.assertTrue(accessLog.log("/user/{id}", "get", 200, TimeUnit.MILLISECONDS.toNanos(3), 0, 42,
+                new InetSocketAddress("127.0.0.1", 4321)));
+        Assert.assertTrue(accessLog.log("/user", "post", 0, 1000, 10, 0, null));
+        accessLog.close();
+        Assert.assertEquals("127.0.0.1 get /user/{id} 200 3000 0 42 100%\n" +
+                            "- post /user - 1 10 0 100%\n", writer.toString());
+        Assert.assertFalse(accessLog.log("/user", "get", 200, 0, 0, 0, null));
+    }
+
+    @Test
+    public void dropsWhenTheWriterDoesNotKeepUp() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        StringWriter lines = new StringWriter();
+        Writer slowWriter = new Writer() {
+            public void write(char[] chars, int offset, int length) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                lines.write(chars, offset, length);
+            }
+
+            public void flush() {
+            }
+
+            public void close() {
+            }
+        };
+        AccessLog accessLog = new AccessLog(slowWriter, AccessLogFormat.pattern("%s"), 4);
+        int logged = 0;
+        for (int i = 0; i < 100; i++) {
+            if (accessLog.log("/", "get", 200, 0, 0, 0, null)) {
+                logged++;
+            }
+        }
+        Assert.assertTrue(logged + " logged", logged >= 4 && logged <= 5);
+        Assert.assertEquals(100 - logged, accessLog.dropped());
+        blocked.countDown();
+        accessLog.close();
+        Assert.assertEquals("200\n".repeat(logged), lines.toString());
+    }
+
+    @Test
+    public void unknownDirective() {
+        try {
+            AccessLogFormat.pattern("%x");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Unknown directive %x in %x", e.getMessage());
+        }
+    }
+}
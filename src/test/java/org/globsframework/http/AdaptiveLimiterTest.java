@@ -0,0 +1,58 @@
+package org.globsframework.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void requestsAboveTheLimitAreRejected() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10);
+        AdaptiveLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveLimiter.Permit second = limiter.tryAcquire();
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNull(limiter.tryAcquire());
+        Assert.assertEquals(1, limiter.rejected());
+
+        first.abandon();
+        first.abandon();
+        Assert.assertEquals(1, limiter.inFlight());
+        Assert.assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    public void limitGrowsWhileTheLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 200);
+        runAtLimit(limiter, 100, 1_000_000);
+        int grown = limiter.limit();
+        Assert.assertTrue("limit " + grown, grown > 50);
+
+        runAtLimit(limiter, 1, 10_000_000);
+        Assert.assertTrue("limit " + limiter.limit() + " after " + grown, limiter.limit() < grown / 2);
+        Assert.assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void unusedLimitDoesNotGrow() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 200);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire().release(1_000_000);
+        }
+        Assert.assertEquals(10, limiter.limit());
+    }
+
+    private static void runAtLimit(AdaptiveLimiter limiter, int rounds, long latencyNanos) {
+        for (int i = 0; i < rounds; i++) {
+            List<AdaptiveLimiter.Permit> permits = new ArrayList<>();
+            AdaptiveLimiter.Permit permit;
+            while ((permit = limiter.tryAcquire()) != null) {
+                permits.add(permit);
+            }
+            permits.forEach(p -> p.release(latencyNanos));
+        }
+    }
+}
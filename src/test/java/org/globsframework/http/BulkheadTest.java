@@ -0,0 +1,71 @@
+package org.globsframework.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkheadTest {
+
+    @Test
+    public void queuedHandlersGetTheReleasedSlots() {
+        List<String> started = new ArrayList<>();
+        Bulkhead bulkhead = new Bulkhead(2, 1, 5);
+        Assert.assertTrue(bulkhead.submit(() -> started.add("a")));
+        Assert.assertTrue(bulkhead.submit(() -> started.add("b")));
+        Assert.assertTrue(bulkhead.submit(() -> started.add("c")));
+        Assert.assertEquals(List.of("a", "b"), started);
+        Assert.assertEquals(2, bulkhead.inFlight());
+        Assert.assertEquals(1, bulkhead.queueDepth());
+
+        Assert.assertFalse("queue full", bulkhead.submit(() -> started.add("d")));
+        Assert.assertEquals(1, bulkhead.rejected());
+
+        Runnable next = bulkhead.release();
+        Assert.assertNotNull(next);
+        next.run();
+        Assert.assertEquals(List.of("a", "b", "c"), started);
+        Assert.assertEquals("the slot was given to c", 2, bulkhead.inFlight());
+        Assert.assertEquals(0, bulkhead.queueDepth());
+
+        Assert.assertNull(bulkhead.release());
+        Assert.assertNull(bulkhead.release());
+        Assert.assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    public void handlersReleasingInlineAreRunInALoop() {
+        Executor inline = Runnable::run;
+        AtomicInteger run = new AtomicInteger();
+        Bulkhead bulkhead = new Bulkhead(1, 100_000, 5);
+        bulkhead.submit(() -> {
+        });
+        for (int i = 0; i < 100_000; i++) {
+            bulkhead.submit(() -> {
+                run.incrementAndGet();
+                bulkhead.release(inline);
+            });
+        }
+
+        bulkhead.release(inline);
+        Assert.assertEquals(100_000, run.get());
+        Assert.assertEquals(0, bulkhead.inFlight());
+        Assert.assertEquals(0, bulkhead.queueDepth());
+    }
+
+    @Test
+    public void cancelledHandlersAreNotRun() {
+        List<String> started = new ArrayList<>();
+        Bulkhead bulkhead = new Bulkhead(1, 2, 5);
+        bulkhead.submit(() -> started.add("a"));
+        Runnable b = () -> started.add("b");
+        bulkhead.submit(b);
+        bulkhead.cancel(b);
+        Assert.assertEquals(0, bulkhead.queueDepth());
+        Assert.assertNull(bulkhead.release());
+        Assert.assertEquals(List.of("a"), started);
+    }
+}
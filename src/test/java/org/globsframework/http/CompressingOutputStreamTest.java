@@ -0,0 +1,70 @@
+package org.globsframework.http;
+
+import org.globsframework.http.streams.CompressingOutputStream;
+import org.globsframework.http.streams.DirectBufferPool;
+import org.globsframework.http.streams.MultiBufferOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class CompressingOutputStreamTest {
+    private final DirectBufferPool pool = new DirectBufferPool(16 * 1024 * 1024);
+
+    @Test
+    public void smallContentIsNotCompressed() throws IOException {
+        CompressingOutputStream out = new CompressingOutputStream(pool, CompressingOutputStream.Encoding.GZIP, 6, 100);
+        out.write("small".getBytes(StandardCharsets.UTF_8));
+        out.close();
+        Assert.assertFalse(out.isCompressed());
+        Assert.assertEquals("small", new String(bytes(out.result()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compressOnceTheThresholdIsReached() throws IOException {
+        String content = "{\"value\":\"some json\"},".repeat(10_000);
+        for (CompressingOutputStream.Encoding encoding : CompressingOutputStream.Encoding.values()) {
+            CompressingOutputStream out = new CompressingOutputStream(pool, encoding, 6, 1000);
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i += 333) {
+                out.write(bytes, i, Math.min(333, bytes.length - i));
+            }
+            out.close();
+            Assert.assertTrue(out.isCompressed());
+            Assert.assertEquals(bytes.length, out.uncompressedSize());
+            Assert.assertTrue(out.result().size() < bytes.length / 10);
+            InputStream inflated = encoding == CompressingOutputStream.Encoding.GZIP ?
+                    new GZIPInputStream(new ByteArrayInputStream(bytes(out.result()))) :
+                    new InflaterInputStream(new ByteArrayInputStream(bytes(out.result())));
+            Assert.assertEquals(content, new String(inflated.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void negotiateAcceptEncoding() {
+        Assert.assertNull(ResponseCompression.negotiate(null));
+        Assert.assertNull(ResponseCompression.negotiate("none"));
+        Assert.assertNull(ResponseCompression.negotiate("identity, gzip;q=0"));
+        Assert.assertEquals(CompressingOutputStream.Encoding.GZIP, ResponseCompression.negotiate("gzip, deflate"));
+        Assert.assertEquals(CompressingOutputStream.Encoding.DEFLATE, ResponseCompression.negotiate("gzip;q=0, deflate;q=0.5"));
+        Assert.assertEquals(CompressingOutputStream.Encoding.GZIP, ResponseCompression.negotiate("br, *"));
+        Assert.assertEquals(CompressingOutputStream.Encoding.DEFLATE, ResponseCompression.negotiate("*, gzip;q=0"));
+    }
+
+    private static byte[] bytes(MultiBufferOutputStream out) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : out.data()) {
+            byte[] data = new byte[buffer.remaining()];
+            buffer.duplicate().get(data);
+            bytes.writeBytes(data);
+        }
+        return bytes.toByteArray();
+    }
+}
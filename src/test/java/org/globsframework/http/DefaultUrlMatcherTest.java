@@ -65,6 +65,35 @@ public class DefaultUrlMatcherTest {
         Assert.assertEquals("12343212345", url.get(URLParameterCustomerWorkflow.workflowId));
     }
 
+    @Test
+    public void parseFromPathSegments() {
+        UrlMatcher defaultUrlMatcher = DefaultUrlMatcher.create(TEST_1.TYPE, "/XX/{A}/{B}/XXX/{D}");
+        Glob url = defaultUrlMatcher.parse(PathSegments.of("/XX/AZZ/CSA/XXX/3F?some=query"));
+        Assert.assertEquals("AZZ", url.get(TEST_1.A));
+        Assert.assertEquals("CSA", url.get(TEST_1.B));
+        Assert.assertEquals("3F", url.get(TEST_1.D));
+
+        UrlMatcher wildcardMatcher = DefaultUrlMatcher.create(TEST_4.TYPE, "/{A}/{ALL}");
+        Glob wildcard = wildcardMatcher.parse(PathSegments.of("/AZZ/CSA/XXX/3F"));
+        Assert.assertEquals("AZZ", wildcard.get(TEST_4.A));
+        Assert.assertArrayEquals(new String[]{"CSA", "XXX", "3F"}, wildcard.get(TEST_4.ALL));
+    }
+
+    @Test
+    public void pathSegmentsAreSplitLikeStringSplit() {
+        for (String path : new String[]{"/", "/a", "/a/", "/a//b", "//a", "/a/b//", "///", "/a/b?x=1/2", "/?q", "/a%2Fb/c"}) {
+            int query = path.indexOf('?');
+            String[] expected = path.substring(1, query == -1 ? path.length() : query).split("/");
+            PathSegments segments = PathSegments.of(path);
+            Assert.assertArrayEquals(path, expected, segments.toArray());
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i].hashCode(), segments.segmentHash(i));
+                Assert.assertTrue(segments.segmentEquals(i, expected[i]));
+            }
+            Assert.assertEquals(query == -1 ? null : path.substring(query + 1), segments.query());
+        }
+    }
+
     public static class TEST_1 {
         public static GlobType TYPE;
 
@@ -0,0 +1,55 @@
+package org.globsframework.http;
+
+import org.globsframework.http.streams.DirectBufferPool;
+import org.globsframework.http.streams.MultiBufferOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    public void buffersAreReusedBySizeClass() {
+        DirectBufferPool pool = new DirectBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(1500);
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(2048, buffer.capacity());
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        Assert.assertEquals(2048, pool.bytesRetained());
+
+        Assert.assertEquals(1024, pool.acquire(10).capacity());
+        ByteBuffer reused = pool.acquire(2048);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(1, pool.hits());
+        Assert.assertEquals(2, pool.misses());
+        Assert.assertEquals(0, pool.bytesRetained());
+    }
+
+    @Test
+    public void retainedBytesAreBounded() {
+        DirectBufferPool pool = new DirectBufferPool(4096);
+        pool.release(pool.acquire(4096));
+        pool.release(pool.acquire(1024));
+        Assert.assertEquals(4096, pool.bytesRetained());
+        pool.release(ByteBuffer.allocate(1024));
+        Assert.assertEquals(4096, pool.bytesRetained());
+    }
+
+    @Test
+    public void outputStreamGivesItsBuffersBack() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(16 * 1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            MultiBufferOutputStream out = new MultiBufferOutputStream(pool);
+            out.write(new byte[10_000]);
+            out.close();
+            Assert.assertEquals(10_000, out.size());
+            out.release();
+        }
+        Assert.assertEquals(4, pool.misses()); // 1KB, 2KB, 4KB, 8KB for the first response only
+        Assert.assertEquals(8, pool.hits());
+    }
+}
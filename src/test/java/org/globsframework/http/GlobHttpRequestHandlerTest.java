@@ -1,5 +1,7 @@
 package org.globsframework.http;
 
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
 import org.apache.hc.client5.http.classic.methods.*;
 import org.apache.hc.client5.http.entity.compress.DecompressingEntity;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
@@ -8,6 +10,7 @@ import org.apache.hc.core5.http.*;
 import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
 import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.reactor.IOReactorConfig;
@@ -20,6 +23,12 @@ import org.globsframework.core.metamodel.impl.DefaultGlobTypeBuilder;
 import org.globsframework.core.model.Glob;
 import org.globsframework.core.utils.Ref;
 import org.globsframework.core.utils.collections.Pair;
+import org.globsframework.http.accesslog.AccessLog;
+import org.globsframework.http.accesslog.AccessLogFormat;
+import org.globsframework.http.metrics.model.HistogramSnapshot;
+import org.globsframework.http.metrics.model.MetricsSnapshot;
+import org.globsframework.http.metrics.model.RouteSnapshot;
+import org.globsframework.http.metrics.model.StatusCount;
 import org.globsframework.http.model.*;
 import org.globsframework.http.openapi.model.GetOpenApiParamType;
 import org.globsframework.http.openapi.model.GlobOpenApi;
@@ -33,13 +42,23 @@ import org.junit.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class GlobHttpRequestHandlerTest {
     private static final Logger LOGGER = LoggerFactory.getLogger("test");
@@ -48,6 +67,9 @@ public class GlobHttpRequestHandlerTest {
     private HttpAsyncServer server;
     private int port;
     private HttpServerRegister httpServerRegister;
+    // to the started server, closed after each test
+    private CloseableHttpClient httpclient;
+    private HttpHost target;
     private GlobOpenApi globOpenApi;
     private BlockingQueue<Pair<Glob, Glob>> pairs;
 
@@ -69,7 +91,10 @@ public class GlobHttpRequestHandlerTest {
     }
 
     @After
-    public void tearDown() throws InterruptedException {
+    public void tearDown() throws InterruptedException, IOException {
+        if (httpclient != null) {
+            httpclient.close();
+        }
         if (server != null) {
             server.initiateShutdown();
             server.awaitShutdown(TimeValue.of(10, TimeUnit.SECONDS));
@@ -386,6 +411,604 @@ public class GlobHttpRequestHandlerTest {
         }
     }
 
+    @Test
+    public void streamedPostBinReadsTheBodyWhileItIsReceived() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        httpServerRegister.register("/upload", null)
+                .postBin(null, null, (body, url, queryParameters, headerType) -> {
+                    long count = 0;
+                    try (InputStream stream = body.asStream().stream()) {
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while ((read = stream.read(buffer)) != -1) {
+                            count += read;
+                        }
+                    }
+                    byte[] response = Long.toString(count).getBytes(StandardCharsets.UTF_8);
+                    return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+                })
+                .withExecutor(executor)
+                .withReceiveWindow(64 * 1024)
+                .withStreamedBody(true);
+        startServer();
+
+        try {
+            HttpPost httpPost = new HttpPost("/upload");
+            httpPost.setEntity(new ByteArrayEntity(new byte[4 * 1024 * 1024], ContentType.APPLICATION_OCTET_STREAM));
+            Resp httpResponse = execute(httpPost);
+            Assert.assertEquals(200, httpResponse.code());
+            Assert.assertEquals(Integer.toString(4 * 1024 * 1024), httpResponse.body());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void inlineHandlerOfABodyLargerThanTheWindow() throws IOException {
+        httpServerRegister.register("/upload", null)
+                .postBin(null, null, (body, url, queryParameters, headerType) -> {
+                    byte[] response;
+                    try (InputStream stream = body.asStream().stream()) {
+                        response = Integer.toString(stream.readAllBytes().length).getBytes(StandardCharsets.UTF_8);
+                    }
+                    return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+                });
+        startServer();
+
+        HttpPost httpPost = new HttpPost("/upload");
+        httpPost.setEntity(new ByteArrayEntity(new byte[4 * HttpOperation.DEFAULT_RECEIVE_WINDOW], ContentType.APPLICATION_OCTET_STREAM));
+        Resp httpResponse = execute(httpPost);
+        Assert.assertEquals(200, httpResponse.code());
+        Assert.assertEquals(Integer.toString(4 * HttpOperation.DEFAULT_RECEIVE_WINDOW), httpResponse.body());
+    }
+
+    @Test
+    public void slowHandlerOfABufferedBodyStallsTheUpload() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        httpServerRegister.register("/upload", null)
+                .postBin(null, null, (body, url, queryParameters, headerType) -> {
+                    long count = 0;
+                    try (InputStream stream = body.asStream().stream()) {
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while ((read = stream.read(buffer)) != -1) {
+                            if (count == 0) {
+                                reading.countDown();
+                                resume.await(10, TimeUnit.SECONDS);
+                            }
+                            count += read;
+                        }
+                    }
+                    byte[] response = Long.toString(count).getBytes(StandardCharsets.UTF_8);
+                    return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+                })
+                .withExecutor(executor)
+                .withReceiveWindow(64 * 1024);
+        startServer();
+
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            HttpPost httpPost = new HttpPost("/upload");
+            httpPost.setEntity(new ByteArrayEntity(new byte[32 * 1024 * 1024], ContentType.APPLICATION_OCTET_STREAM));
+            Future<Resp> upload = clients.submit(() -> execute(httpPost));
+
+            // larger than the window: handed to the handler before the end of the body, which is not read
+            Assert.assertTrue(reading.await(10, TimeUnit.SECONDS));
+            Thread.sleep(500);
+            Assert.assertFalse(upload.isDone());
+
+            resume.countDown();
+            Resp httpResponse = upload.get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(200, httpResponse.code());
+            Assert.assertEquals(Integer.toString(32 * 1024 * 1024), httpResponse.body());
+        } finally {
+            clients.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualThreadsExecutionMode() throws IOException {
+        httpServerRegister.setExecutionMode(ExecutionMode.VIRTUAL_THREADS);
+        httpServerRegister.register("/blocking", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) -> {
+                    byte[] response = Boolean.toString(Thread.currentThread().isVirtual()).getBytes(StandardCharsets.UTF_8);
+                    return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+                });
+        httpServerRegister.register("/inline", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) -> {
+                    byte[] response = Boolean.toString(Thread.currentThread().isVirtual()).getBytes(StandardCharsets.UTF_8);
+                    return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+                })
+                .inline();
+        startServer();
+
+        Assert.assertEquals("true", execute(new HttpGet("/blocking")).body());
+        Assert.assertEquals("false", execute(new HttpGet("/inline")).body());
+    }
+
+    @Test
+    public void bulkheadQueuesThenRejects() throws Exception {
+        BlockingQueue<CompletableFuture<HttpOutputData>> pending = new LinkedBlockingQueue<>();
+        httpServerRegister.register("/slow", null)
+                .getBin(null, null, completedBy(pending))
+                .withPolicies(OperationPolicies.NONE.withBulkhead(1, 1, 3));
+        startServer();
+        Bulkhead bulkhead = httpServerRegister.verbMap.get("/slow").operations.get(0).getPolicies().bulkhead();
+
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<Resp> first = clients.submit(() -> execute(new HttpGet("/slow")));
+            CompletableFuture<HttpOutputData> firstResult = pending.poll(10, TimeUnit.SECONDS);
+            Future<Resp> second = clients.submit(() -> execute(new HttpGet("/slow")));
+            long end = System.currentTimeMillis() + 10000;
+            while (bulkhead.queueDepth() != 1 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, bulkhead.inFlight());
+            Assert.assertEquals(1, bulkhead.queueDepth());
+
+            httpclient.execute(target, new HttpGet("/slow"), response -> {
+                Assert.assertEquals(503, response.getCode());
+                Assert.assertEquals("3", response.getFirstHeader(HttpHeaders.RETRY_AFTER).getValue());
+                return null;
+            });
+            Assert.assertEquals(1, bulkhead.rejected());
+
+            firstResult.complete(HttpOutputData.asGlob(Response1.TYPE.instantiate().set(Response1.value, "first")));
+            Assert.assertEquals(200, first.get(10, TimeUnit.SECONDS).code());
+            pending.poll(10, TimeUnit.SECONDS)
+                    .complete(HttpOutputData.asGlob(Response1.TYPE.instantiate().set(Response1.value, "second")));
+            Assert.assertEquals("{\"value\":\"second\"}", second.get(10, TimeUnit.SECONDS).body());
+            Assert.assertEquals(0, bulkhead.inFlight());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void adaptiveLimitShedsBeforeReadingTheBody() throws Exception {
+        BlockingQueue<CompletableFuture<HttpOutputData>> pending = new LinkedBlockingQueue<>();
+        httpServerRegister.register("/upload", null)
+                .postBin(null, null, completedBy(pending))
+                .withPolicies(OperationPolicies.NONE.withAdaptiveLimit(1, 1));
+        startServer();
+        AdaptiveLimiter limiter = httpServerRegister.verbMap.get("/upload").operations.get(0).getPolicies().adaptiveLimiter();
+
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<Resp> first = clients.submit(() -> {
+                HttpPost httpPost = new HttpPost("/upload");
+                httpPost.setEntity(new ByteArrayEntity(new byte[10], ContentType.APPLICATION_OCTET_STREAM));
+                return execute(httpPost);
+            });
+            CompletableFuture<HttpOutputData> firstResult = pending.poll(10, TimeUnit.SECONDS);
+
+            HttpPost httpPost = new HttpPost("/upload");
+            httpPost.setEntity(new ByteArrayEntity(new byte[1024 * 1024], ContentType.APPLICATION_OCTET_STREAM));
+            Assert.assertEquals(503, execute(httpPost).code());
+            Assert.assertEquals(1, limiter.rejected());
+
+            firstResult.complete(null);
+            Assert.assertEquals(204, first.get(10, TimeUnit.SECONDS).code());
+            Assert.assertEquals(0, limiter.inFlight());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void deadlineExceededCancelsTheHandler() throws Exception {
+        CompletableFuture<Glob> handlerResult = new CompletableFuture<>();
+        Ref<RequestDeadline> deadline = new Ref<>();
+        httpServerRegister.register("/hang", null)
+                .get(null, (body, pathParameters, queryParameters) -> {
+                    deadline.set(RequestDeadline.current());
+                    return handlerResult;
+                })
+                .withPolicies(OperationPolicies.NONE.withTimeout(200));
+        startServer();
+
+        Assert.assertEquals(504, execute(new HttpGet("/hang")).code());
+        long end = System.currentTimeMillis() + 1000;
+        while (!handlerResult.isCancelled() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(handlerResult.isCancelled());
+        Assert.assertNotNull(deadline.get());
+        Assert.assertTrue(deadline.get().isExpired());
+
+        deadline.set(null);
+        HttpGet httpGet = new HttpGet("/hang");
+        httpGet.addHeader(RequestDeadline.HEADER, Long.toString(System.currentTimeMillis() - 1000));
+        Assert.assertEquals(504, execute(httpGet).code());
+        Assert.assertNull("expired before the handler is called", deadline.get());
+    }
+
+    @Test
+    public void deadlineExceededWhileQueued() throws Exception {
+        BlockingQueue<CompletableFuture<HttpOutputData>> pending = new LinkedBlockingQueue<>();
+        httpServerRegister.register("/slow", null)
+                .getBin(null, null, completedBy(pending))
+                .withPolicies(OperationPolicies.NONE.withBulkhead(1, 1, 3));
+        startServer();
+        Bulkhead bulkhead = httpServerRegister.verbMap.get("/slow").operations.get(0).getPolicies().bulkhead();
+
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<Resp> first = clients.submit(() -> execute(new HttpGet("/slow")));
+            CompletableFuture<HttpOutputData> firstResult = pending.poll(10, TimeUnit.SECONDS);
+
+            // answered by the timer while the slot is still held by the first one
+            HttpGet queued = new HttpGet("/slow");
+            queued.addHeader(RequestDeadline.HEADER, Long.toString(System.currentTimeMillis() + 300));
+            Assert.assertEquals(504, clients.submit(() -> execute(queued)).get(5, TimeUnit.SECONDS).code());
+            Assert.assertEquals(0, bulkhead.queueDepth());
+            Assert.assertFalse(first.isDone());
+
+            firstResult.complete(HttpOutputData.asGlob(Response1.TYPE.instantiate().set(Response1.value, "first")));
+            Assert.assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+            Assert.assertNull("the queued handler is never called", pending.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void shedRequestIsNotTimedOut() throws Exception {
+        BlockingQueue<CompletableFuture<HttpOutputData>> pending = new LinkedBlockingQueue<>();
+        httpServerRegister.register("/slow", null)
+                .getBin(null, null, completedBy(pending))
+                .withPolicies(OperationPolicies.NONE.withTimeout(300).withAdaptiveLimit(1, 1));
+        httpServerRegister.registerMetrics("/metrics");
+        startServer();
+
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<Resp> first = clients.submit(() -> execute(new HttpGet("/slow")));
+            CompletableFuture<HttpOutputData> firstResult = pending.poll(10, TimeUnit.SECONDS);
+            Assert.assertEquals(503, execute(new HttpGet("/slow")).code());
+            firstResult.complete(HttpOutputData.asGlob(Response1.TYPE.instantiate().set(Response1.value, "first")));
+            Assert.assertEquals(200, first.get(5, TimeUnit.SECONDS).code());
+        } finally {
+            clients.shutdown();
+        }
+        Thread.sleep(600);
+
+        Glob snapshot = GSonUtils.decode(execute(new HttpGet("/metrics")).body(), MetricsSnapshot.TYPE);
+        Glob slow = Stream.of(snapshot.get(MetricsSnapshot.routes))
+                .filter(route -> route.get(RouteSnapshot.url).equals("/slow"))
+                .findFirst().orElseThrow();
+        Map<Integer, Long> statuses = Stream.of(slow.get(RouteSnapshot.statuses))
+                .collect(Collectors.toMap(status -> status.get(StatusCount.status), status -> status.get(StatusCount.count)));
+        Assert.assertEquals(Map.of(200, 1L, 503, 1L), statuses);
+    }
+
+    @Test
+    public void metricsPerRoute() throws IOException {
+        httpServerRegister.register("/hello/{id}", URLOneParameter.TYPE)
+                .get(null, (body, pathParameters, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate().set(Response1.value, "hello")));
+        httpServerRegister.registerMetrics("/metrics");
+        startServer();
+
+        Assert.assertEquals(200, execute(new HttpGet("/hello/1")).code());
+        Assert.assertEquals(200, execute(new HttpGet("/hello/2")).code());
+        Assert.assertEquals(403, execute(new HttpGet("/unknown")).code());
+
+        Resp response = execute(new HttpGet("/metrics"));
+        Assert.assertEquals(200, response.code());
+        Glob snapshot = GSonUtils.decode(response.body(), MetricsSnapshot.TYPE);
+        Assert.assertEquals(1L, snapshot.get(MetricsSnapshot.unmatched).longValue());
+        Glob hello = Stream.of(snapshot.get(MetricsSnapshot.routes))
+                .filter(route -> route.get(RouteSnapshot.url).equals("/hello/{id}"))
+                .findFirst().orElseThrow();
+        Assert.assertEquals("get", hello.get(RouteSnapshot.verb));
+        Glob[] statuses = hello.get(RouteSnapshot.statuses);
+        Assert.assertEquals(1, statuses.length);
+        Assert.assertEquals(200, statuses[0].get(StatusCount.status).intValue());
+        Assert.assertEquals(2L, statuses[0].get(StatusCount.count).longValue());
+        Assert.assertEquals(2L, hello.get(RouteSnapshot.handler).get(HistogramSnapshot.count).longValue());
+        Assert.assertTrue(hello.get(RouteSnapshot.total).get(HistogramSnapshot.count) >= 1);
+    }
+
+    @Test
+    public void jfrEventsOfAnExchange() throws Exception {
+        httpServerRegister.register("/hello/{id}", URLOneParameter.TYPE)
+                .get(null, (body, pathParameters, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate().set(Response1.value, "hello")));
+        startServer();
+
+        Map<String, RecordedEvent> events = new ConcurrentHashMap<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            for (String name : List.of("RouteMatch", "BodyReceived", "HandlerDispatch", "Handler", "JsonEncode", "Exchange")) {
+                recording.enable("org.globsframework.http." + name);
+                recording.onEvent("org.globsframework.http." + name, event -> events.put(name, event));
+            }
+            recording.startAsync();
+            Assert.assertEquals(200, execute(new HttpGet("/hello/1")).code());
+            long end = System.currentTimeMillis() + 10000;
+            while (events.size() < 6 && System.currentTimeMillis() < end) {
+                Thread.sleep(50);
+            }
+        }
+        Assert.assertEquals(events.keySet().toString(), 6, events.size());
+        Assert.assertEquals("/hello/{id}", events.get("RouteMatch").getString("route"));
+        Assert.assertEquals(200, events.get("Handler").getInt("status"));
+        RecordedEvent exchange = events.get("Exchange");
+        Assert.assertEquals("/hello/{id}", exchange.getString("route"));
+        Assert.assertEquals("get", exchange.getString("verb"));
+        Assert.assertEquals(200, exchange.getInt("status"));
+        Assert.assertEquals(events.get("JsonEncode").getLong("bytes"), exchange.getLong("bytesOut"));
+    }
+
+    @Test
+    public void accessLogOfAnExchange() throws Exception {
+        File file = File.createTempFile("access", ".log");
+        file.deleteOnExit();
+        AccessLog accessLog = new AccessLog(file.toPath(), AccessLogFormat.pattern("%m %r %s %o"), 64);
+        httpServerRegister.setAccessLog(accessLog);
+        httpServerRegister.register("/hello/{id}", URLOneParameter.TYPE)
+                .get(null, (body, pathParameters, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate().set(Response1.value, "hello")));
+        Server serverInstance = startServer();
+
+        try {
+            Resp response = execute(new HttpGet("/hello/1"));
+            Assert.assertEquals(200, response.code());
+            Assert.assertEquals(403, execute(new HttpGet("/unknown")).code());
+            String expected = "get /hello/{id} 200 " + response.contentLength() + "\nget - 403 0\n";
+            long end = System.currentTimeMillis() + 5000;
+            while (!Files.readString(file.toPath()).equals(expected) && System.currentTimeMillis() < end) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(expected, Files.readString(file.toPath()));
+
+            serverInstance.shutdown();
+            Assert.assertFalse("closed with the server", accessLog.log("/hello/{id}", "get", 200, 0, 0, 0, null));
+        } finally {
+            accessLog.close();
+        }
+    }
+
+    @Test
+    public void chunkedGlobArrayResponse() throws IOException {
+        Glob[] globs = new Glob[5000];
+        for (int i = 0; i < globs.length; i++) {
+            globs[i] = Response1.TYPE.instantiate().set(Response1.value, "value " + i);
+        }
+        httpServerRegister.register("/array", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) ->
+                        CompletableFuture.completedFuture(HttpOutputData.asGlobArray(globs)))
+                .withChunkedResponse(true);
+        httpServerRegister.register("/empty", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) ->
+                        CompletableFuture.completedFuture(HttpOutputData.asGlobArray(new Glob[0])))
+                .withChunkedResponse(true);
+        startServer();
+
+        Resp httpResponse = execute(new HttpGet("/array"));
+        Assert.assertEquals(200, httpResponse.code());
+        Assert.assertEquals(-1, httpResponse.contentLength());
+        Assert.assertEquals(GSonUtils.encode(globs, false), httpResponse.body());
+
+        Assert.assertEquals("[]", execute(new HttpGet("/empty")).body());
+    }
+
+    @Test
+    public void binaryFormatNegotiated() throws IOException {
+        httpServerRegister.register("/echo", null)
+                .post(Response1.TYPE, null, (body, url, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate()
+                                .set(Response1.value, "echo " + body.get(Response1.value))))
+                .withBinaryFormat(true);
+        httpServerRegister.register("/array", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) ->
+                        CompletableFuture.completedFuture(HttpOutputData.asGlobArray(values(3).toArray(Glob[]::new))))
+                .withBinaryFormat(true);
+        startServer();
+
+        Glob hello = Response1.TYPE.instantiate().set(Response1.value, "hello");
+        Glob echo = httpclient.execute(target, GlobHttpUtils.createBinaryPost("/echo", null, hello), response -> {
+            Assert.assertEquals(200, response.getCode());
+            Assert.assertEquals(GlobBinaryCodec.MIME_TYPE, response.getEntity().getContentType());
+            return GlobHttpUtils.decode(response.getEntity(), Response1.TYPE);
+        });
+        Assert.assertEquals("echo hello", echo.get(Response1.value));
+
+        Glob[] array = httpclient.execute(target, GlobHttpUtils.createBinaryGet("/array", null), response ->
+                GlobHttpUtils.decodeArray(response.getEntity(), Response1.TYPE));
+        Assert.assertEquals(GSonUtils.encode(values(3).toArray(Glob[]::new), false), GSonUtils.encode(array, false));
+
+        // JSON is still the default
+        Resp json = execute(GlobHttpUtils.createPost("/echo", null, hello));
+        Assert.assertEquals(200, json.code());
+        Assert.assertEquals("{\"value\":\"echo hello\"}", json.body());
+
+        // a malformed body is refused as a bad request, whatever its format
+        HttpPost invalidBinary = new HttpPost("/echo");
+        invalidBinary.setEntity(new ByteArrayEntity(new byte[]{0, 0, 0, 3, 1}, GlobBinaryCodec.CONTENT_TYPE));
+        Assert.assertEquals(400, execute(invalidBinary).code());
+        HttpPost invalidJson = new HttpPost("/echo");
+        invalidJson.setEntity(new StringEntity("{\"value\": ", ContentType.APPLICATION_JSON));
+        Assert.assertEquals(400, execute(invalidJson).code());
+    }
+
+    @Test
+    public void asyncClientFromRegister() throws Exception {
+        httpServerRegister.register("/hello/{id}", URLOneParameter.TYPE)
+                .get(QueryParameter2.TYPE, (body, url, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate()
+                                .set(Response1.value, "hello " + url.get(URLOneParameter.ID) + " " + queryParameters.get(QueryParameter2.value))))
+                .declareReturnType(Response1.TYPE);
+        httpServerRegister.register("/echo", null)
+                .post(Response1.TYPE, null, (body, url, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate()
+                                .set(Response1.value, "echo " + body.get(Response1.value))))
+                .declareReturnType(Response1.TYPE);
+        httpServerRegister.register("/conflict", null)
+                .post(Response1.TYPE, null, (body, url, queryParameters) ->
+                        CompletableFuture.failedFuture(new HttpException(409, "already there")));
+        startServer();
+
+        try (GlobHttpAsyncClient client = new GlobHttpAsyncClient(httpServerRegister, new HttpHost("http", "localhost", port))) {
+            Glob hello = client.get("/hello/{id}", URLOneParameter.TYPE.instantiate().set(URLOneParameter.ID, 3L),
+                    QueryParameter2.TYPE.instantiate().set(QueryParameter2.value, "you")).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("hello 3 you", hello.get(Response1.value));
+
+            Glob echo = client.post("/echo", null, null, Response1.TYPE.instantiate().set(Response1.value, "ping"))
+                    .get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("echo ping", echo.get(Response1.value));
+
+            try {
+                client.post("/conflict", null, null, Response1.TYPE.instantiate()).get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertEquals(409, ((HttpException) e.getCause()).getCode());
+            }
+            try {
+                client.delete("/echo", null, null);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    @Test
+    public void globQueryParametersCompactOrInBody() throws IOException {
+        httpServerRegister.register("/query", null)
+                .get(QueryParameter.TYPE, (body, url, queryParameters) ->
+                        CompletableFuture.completedFuture(Response1.TYPE.instantiate()
+                                .set(Response1.value, queryParameters.get(QueryParameter.NAME) + " " +
+                                                      queryParameters.get(QueryParameter.param).get(QueryParameter.NAME))))
+                .withPolicies(OperationPolicies.NONE.withMethodOverride(true));
+        HttpServerRegister.Verb plain = httpServerRegister.register("/plain", null);
+        plain.get(QueryParameter.TYPE, (body, url, queryParameters) ->
+                CompletableFuture.completedFuture(Response1.TYPE.instantiate().set(Response1.value, "get")));
+        plain.postBin(null, null, (body, url, queryParameters, headerType) -> {
+            byte[] response = "post".getBytes(StandardCharsets.UTF_8);
+            return CompletableFuture.completedFuture(HttpOutputData.asStream(new ByteArrayInputStream(response), response.length));
+        });
+        startServer();
+
+        Glob nested = QueryParameter.TYPE.instantiate().set(QueryParameter.NAME, "nested");
+        Glob query = QueryParameter.TYPE.instantiate().set(QueryParameter.NAME, "a").set(QueryParameter.param, nested);
+        String longName = "x".repeat(3000);
+        Glob longQuery = QueryParameter.TYPE.instantiate().set(QueryParameter.NAME, longName).set(QueryParameter.param, nested);
+        Assert.assertEquals("{\"value\":\"a nested\"}",
+                execute(GlobHttpUtils.createGet("/query", query)).body());
+        Assert.assertEquals("{\"value\":\"a nested\"}",
+                execute(new HttpGet("/query?" + GlobHttpUtils.formatURL(query, true))).body());
+
+        Assert.assertEquals("GET", GlobHttpUtils.createGet("/query", query, GlobHttpUtils.DEFAULT_MAX_URL_LENGTH).getMethod());
+        HttpUriRequestBase inBody = GlobHttpUtils.createGet("/query", longQuery, GlobHttpUtils.DEFAULT_MAX_URL_LENGTH);
+        Assert.assertEquals("POST", inBody.getMethod());
+        Assert.assertEquals("{\"value\":\"" + longName + " nested\"}", execute(inBody).body());
+
+        // the header is ignored by the operations that do not accept it
+        Assert.assertEquals("post", execute(
+                GlobHttpUtils.createGet("/plain", longQuery, GlobHttpUtils.DEFAULT_MAX_URL_LENGTH)).body());
+
+        Glob tooLong = QueryParameter.TYPE.instantiate().set(QueryParameter.NAME, "x".repeat(100_000));
+        Assert.assertEquals(413, execute(
+                GlobHttpUtils.createGet("/query", tooLong, GlobHttpUtils.DEFAULT_MAX_URL_LENGTH)).code());
+    }
+
+    @Test
+    public void identicalGetsCoalesced() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Glob> pending = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Glob>> result = new AtomicReference<>(pending);
+        httpServerRegister.register("/cached/{id}", URLOneParameter.TYPE)
+                .get(null, (body, url, queryParameters) -> {
+                    calls.incrementAndGet();
+                    return result.get();
+                })
+                .withPolicies(OperationPolicies.NONE.withCoalescing());
+        startServer();
+        Coalescing coalescing = httpServerRegister.verbMap.get("/cached/{id}").operations.get(0).getPolicies().coalescing();
+
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Resp>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(clients.submit(() -> execute(new HttpGet("/cached/1"))));
+            }
+            long end = System.currentTimeMillis() + 5000;
+            while (coalescing.coalesced() < 3 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(3, coalescing.coalesced());
+            pending.complete(Response1.TYPE.instantiate().set(Response1.value, "once"));
+            for (Future<Resp> response : responses) {
+                Assert.assertEquals(200, response.get(5, TimeUnit.SECONDS).code());
+                Assert.assertEquals("{\"value\":\"once\"}", response.get().body());
+            }
+            Assert.assertEquals(1, calls.get());
+            Assert.assertEquals(0, coalescing.inFlight());
+
+            // an error is not shared: the waiting requests call the handler
+            CompletableFuture<Glob> failing = new CompletableFuture<>();
+            result.set(failing);
+            responses.clear();
+            for (int i = 0; i < 3; i++) {
+                responses.add(clients.submit(() -> execute(new HttpGet("/cached/2"))));
+            }
+            end = System.currentTimeMillis() + 5000;
+            while (coalescing.coalesced() < 5 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            result.set(CompletableFuture.completedFuture(Response1.TYPE.instantiate().set(Response1.value, "retried")));
+            failing.completeExceptionally(new HttpException(503, "unavailable"));
+            List<Integer> codes = new ArrayList<>();
+            for (Future<Resp> response : responses) {
+                codes.add(response.get(5, TimeUnit.SECONDS).code());
+            }
+            codes.sort(null);
+            Assert.assertEquals(List.of(200, 200, 503), codes);
+            Assert.assertEquals(0, coalescing.inFlight());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void globStreamResponses() throws IOException, InterruptedException {
+        CountDownLatch closed = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "encoder"));
+        Set<String> pullingThreads = ConcurrentHashMap.newKeySet();
+        httpServerRegister.register("/json", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) ->
+                        CompletableFuture.completedFuture(HttpOutputData.asGlobStream(values(10_000)
+                                .peek(glob -> pullingThreads.add(Thread.currentThread().getName()))
+                                .onClose(closed::countDown))))
+                .withExecutor(executor);
+        httpServerRegister.register("/ndjson", null)
+                .getBin(null, null, (body, url, queryParameters, headerType) ->
+                        CompletableFuture.completedFuture(HttpOutputData.asNdJson(values(3).onClose(closed::countDown))));
+        startServer();
+
+        try {
+            Resp json = execute(new HttpGet("/json"));
+            Assert.assertEquals(200, json.code());
+            Assert.assertEquals(GSonUtils.encode(values(10_000).toArray(Glob[]::new), false), json.body());
+
+            Resp ndJson = execute(new HttpGet("/ndjson"));
+            Assert.assertEquals("application/x-ndjson; charset=UTF-8", ndJson.contentType());
+            Assert.assertEquals("{\"value\":\"value 0\"}\n{\"value\":\"value 1\"}\n{\"value\":\"value 2\"}\n", ndJson.body());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(closed.await(2, TimeUnit.SECONDS));
+        Assert.assertEquals(Set.of("encoder"), pullingThreads); // not the reactor
+    }
+
+    private static Stream<Glob> values(int count) {
+        return IntStream.range(0, count).mapToObj(i -> Response1.TYPE.instantiate().set(Response1.value, "value " + i));
+    }
+
     @Test
     public void testGlobHttpContent() throws IOException, ParseException {
         String charsetName = "UTF-16";
@@ -428,7 +1051,6 @@ public class GlobHttpRequestHandlerTest {
     }
 
     @Test
-    @Ignore
     public void testGlobFile() throws IOException, InterruptedException, ParseException {
         File sentFile = File.createTempFile("httpContent", ".json");
         sentFile.deleteOnExit();
@@ -470,9 +1092,46 @@ public class GlobHttpRequestHandlerTest {
             Assert.assertEquals(200, httpResponse.code());
             Assert.assertEquals("text/plain; charset=UTF-8", httpResponse.contentType());
             Assert.assertEquals("file data received", httpResponse.body());
+            for (int i = 0; i < 20 && receivedFile.exists(); i++) {
+                Thread.sleep(100);
+            }
+            Assert.assertFalse(receivedFile.exists());
         }
     }
 
+    @Test
+    public void globFileRange() throws IOException {
+        File file = File.createTempFile("httpContent", ".bin");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "0123456789");
+
+        httpServerRegister.register("/file", null)
+                .get(null, (body, url, queryParameters) ->
+                        CompletableFuture.completedFuture(GlobFile.TYPE.instantiate()
+                                .set(GlobFile.file, file.getAbsolutePath())
+                                .set(GlobFile.removeWhenDelivered, true)));
+        startServer();
+
+        Assert.assertEquals("23456", getRange("bytes=2-6", 206, "bytes 2-6/10"));
+        Assert.assertEquals("789", getRange("bytes=-3", 206, "bytes 7-9/10"));
+        Assert.assertEquals("56789", getRange("bytes=5-", 206, "bytes 5-9/10"));
+        Assert.assertEquals("", getRange("bytes=10-", 416, "bytes */10"));
+        Assert.assertTrue("a range does not remove the file", file.exists());
+
+        Assert.assertEquals("0123456789", getRange("bytes=0-1,4-5", 200, null));
+    }
+
+    private String getRange(String range, int expectedCode, String expectedContentRange) throws IOException {
+        HttpGet httpGet = new HttpGet("/file");
+        httpGet.addHeader(HttpHeaders.RANGE, range);
+        return httpclient.execute(target, httpGet, response -> {
+            Assert.assertEquals(expectedCode, response.getCode());
+            Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+            Assert.assertEquals(expectedContentRange, contentRange != null ? contentRange.getValue() : null);
+            return response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+        });
+    }
+
     @Test
     public void testThrowable() throws IOException, InterruptedException, ParseException {
         httpServerRegister.register("/hello", null)
@@ -534,14 +1193,14 @@ public class GlobHttpRequestHandlerTest {
     }
 
     @Test
-    @Ignore
     public void testCompressed() throws IOException, InterruptedException, ParseException {
         httpServerRegister.register("/query", null)
                 .get(QueryParameter2.TYPE, (body, url, queryParameters) ->
                         CompletableFuture.completedFuture(Response1.TYPE.instantiate()
                                 .set(Response1.value, queryParameters.get(QueryParameter2.value))
                         )
-                );
+                )
+                .withCompression(0, 6);
 
         startServer();
 
@@ -570,6 +1229,41 @@ public class GlobHttpRequestHandlerTest {
         }
     }
 
+    @Test
+    public void openApiServedWithETag() throws IOException {
+        httpServerRegister.register("/test/{id}", URLOneParameter.TYPE)
+                .get(QueryParameter.TYPE, (body, url, queryParameters) -> null)
+                .declareTags(new String[]{"test-scope"});
+        httpServerRegister.registerOpenApi(globOpenApi);
+        globOpenApi.setGzip(true);
+        startServer();
+
+        HttpClientResponseHandler<Pair<Integer, String>> eTag = response -> {
+            EntityUtils.consume(response.getEntity());
+            Header header = response.getFirstHeader(HttpHeaders.ETAG);
+            return Pair.makePair(response.getCode(), header != null ? header.getValue() : null);
+        };
+        Pair<Integer, String> first = httpclient.execute(target, new HttpGet("/api?scope=test-scope"), eTag);
+        Assert.assertEquals(200, first.getFirst().intValue());
+        Assert.assertNotNull(first.getSecond());
+        Assert.assertTrue(first.getSecond().endsWith("-gzip\""));
+
+        HttpGet conditional = new HttpGet("/api?scope=test-scope");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getSecond());
+        Assert.assertEquals(304, httpclient.execute(target, conditional, eTag).getFirst().intValue());
+        Assert.assertNotEquals(first.getSecond(), httpclient.execute(target, new HttpGet("/api"), eTag).getSecond());
+
+        // a new route invalidates the docs
+        httpServerRegister.register("/other/{id}", URLOneParameter.TYPE)
+                .get(null, (body, url, queryParameters) -> null)
+                .declareTags(new String[]{"test-scope"});
+        conditional = new HttpGet("/api?scope=test-scope");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getSecond());
+        Pair<Integer, String> changed = httpclient.execute(target, conditional, eTag);
+        Assert.assertEquals(200, changed.getFirst().intValue());
+        Assert.assertNotEquals(first.getSecond(), changed.getSecond());
+    }
+
     @Test
     public void openApiScope() throws IOException, InterruptedException {
         httpServerRegister.register("/test", URLOneParameter.TYPE)
@@ -689,13 +1383,29 @@ public class GlobHttpRequestHandlerTest {
         });
     }
 
-    private void startServer() {
+    private Resp execute(ClassicHttpRequest request) throws IOException {
+        return execute(httpclient, target, request);
+    }
+
+    // a handler whose results are completed by the test
+    private static HttpDataTreatmentWithHeader completedBy(BlockingQueue<CompletableFuture<HttpOutputData>> pending) {
+        return (body, url, queryParameters, headerType) -> {
+            CompletableFuture<HttpOutputData> result = new CompletableFuture<>();
+            pending.add(result);
+            return result;
+        };
+    }
+
+    private Server startServer() {
         GlobHttpApacheBuilder globHttpApacheBuilder = new GlobHttpApacheBuilder(httpServerRegister);
         Server serverInstance = globHttpApacheBuilder.startAndWaitForStartup(bootstrap, 0);
         server = serverInstance.getServer();
         port = serverInstance.getPort();
+        httpclient = HttpClients.createDefault();
+        target = new HttpHost("http", "localhost", port);
         this.globOpenApi.initOpenApiDoc(port);
         System.out.println("port:" + port);
+        return serverInstance;
     }
 
     static public class URLParameter {
@@ -14,6 +14,8 @@ import org.globsframework.core.model.MutableGlob;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.List;
 
 public class GlobHttpUtilsTest {
@@ -161,6 +163,35 @@ public class GlobHttpUtilsTest {
         Assert.assertEquals("/aCode/33", r3);
     }
 
+    @Test
+    public void globArrayParameterIsDecodedFromJsonAndBinary() {
+        Glob parameters = ARRAY.TYPE.instantiate().set(ARRAY.params, new Glob[]{
+                PARAM.TYPE.instantiate().set(PARAM.str, "first").set(PARAM.aLong, 1),
+                PARAM.TYPE.instantiate().set(PARAM.str, "second").set(PARAM.aLong, 2)});
+
+        for (boolean binaryGlobs : new boolean[]{false, true}) {
+            List<NameValuePair> list = GlobHttpUtils.glob2ValuePairList(parameters, binaryGlobs);
+            Assert.assertEquals(1, list.size());
+            MutableGlob decoded = ARRAY.TYPE.instantiate();
+            GlobHttpUtils.createConverter(ARRAY.params, ",").convert(decoded, list.get(0).getValue());
+            Glob[] params = decoded.get(ARRAY.params);
+            Assert.assertEquals(2, params.length);
+            Assert.assertEquals("first", params[0].get(PARAM.str));
+            Assert.assertEquals(2L, params[1].get(PARAM.aLong).longValue());
+        }
+    }
+
+    @Test
+    public void binaryGlobLongerThanItsInputIsRejected() {
+        byte[] forged = {0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1, 2, 3};
+        try {
+            GlobBinaryCodec.read(new ByteArrayInputStream(forged), PARAM.TYPE);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("Glob size 2147483647 but only 3 bytes", e.getMessage());
+        }
+    }
+
     static public class Url {
         public static GlobType TYPE;
 
@@ -176,6 +207,19 @@ public class GlobHttpUtilsTest {
         }
     }
 
+    static public class ARRAY {
+        public static GlobType TYPE;
+
+        @Target(PARAM.class)
+        public static GlobArrayField<PARAM> params;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("ARRAY");
+            params = typeBuilder.declareGlobArrayField("params", () -> PARAM.TYPE);
+            TYPE = typeBuilder.build();
+        }
+    }
+
     static public class PARAM {
         public static GlobType TYPE;
 
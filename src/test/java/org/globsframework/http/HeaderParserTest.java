@@ -0,0 +1,73 @@
+package org.globsframework.http;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.*;
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.server.apache.HeaderParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+public class HeaderParserTest {
+
+    @Test
+    public void namesAreMatchedWhateverTheCase() {
+        Glob header = HeaderParser.get(Headers.TYPE).parse(new Header[]{
+                new BasicHeader("X-REQUEST-ID", "abc"),
+                new BasicHeader("x-count", "12"),
+                new BasicHeader("X-Ratio", "0.5"),
+                new BasicHeader("x-since", "2024-02-29"),
+                new BasicHeader("Content-Type", "application/json")
+        });
+        Assert.assertEquals("abc", header.get(Headers.xRequestId));
+        Assert.assertEquals(12, header.get(Headers.xCount).intValue());
+        Assert.assertEquals(0.5, header.get(Headers.xRatio), 0);
+        Assert.assertEquals(LocalDate.of(2024, 2, 29), header.get(Headers.xSince));
+        Assert.assertNull(header.get(Headers.xEnabled));
+    }
+
+    @Test
+    public void listsAreSplitAndRepeatedHeadersAppended() {
+        Glob header = HeaderParser.get(Headers.TYPE).parse(new Header[]{
+                new BasicHeader("X-Ids", "1, 2,3"),
+                new BasicHeader("X-Ids", "4")
+        });
+        Assert.assertArrayEquals(new long[]{1, 2, 3, 4}, header.get(Headers.xIds));
+    }
+
+    @Test
+    public void invalidValueIsABadRequest() {
+        try {
+            HeaderParser.get(Headers.TYPE).parse(new Header[]{new BasicHeader("X-Count", "twelve")});
+            Assert.fail();
+        } catch (HttpException e) {
+            Assert.assertEquals(400, e.getCode());
+        }
+    }
+
+    public static class Headers {
+        public static GlobType TYPE;
+        public static StringField xRequestId;
+        public static IntegerField xCount;
+        public static DoubleField xRatio;
+        public static DateField xSince;
+        public static BooleanField xEnabled;
+        public static LongArrayField xIds;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Headers");
+            xRequestId = typeBuilder.declareStringField("x-request-id");
+            xCount = typeBuilder.declareIntegerField("X-Count");
+            xRatio = typeBuilder.declareDoubleField("x-ratio");
+            xSince = typeBuilder.declareDateField("x-since");
+            xEnabled = typeBuilder.declareBooleanField("x-enabled");
+            xIds = typeBuilder.declareLongArrayField("x-ids");
+            TYPE = typeBuilder.build();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.globsframework.http;
+
+import org.globsframework.http.metrics.Histogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void percentilesWithinTheRelativeError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(10000, snapshot.count());
+        Assert.assertEquals(10000, snapshot.max());
+        Assert.assertEquals(5000.5, snapshot.mean(), 0.001);
+        assertWithin(5000, snapshot.valueAt(50));
+        assertWithin(9900, snapshot.valueAt(99));
+        assertWithin(9990, snapshot.valueAt(99.9));
+        Assert.assertEquals(10000, snapshot.valueAt(100));
+    }
+
+    @Test
+    public void smallAndHugeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-3);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(0, snapshot.valueAt(10));
+        Assert.assertEquals(7, snapshot.valueAt(50));
+        Assert.assertEquals(Long.MAX_VALUE, snapshot.valueAt(100));
+    }
+
+    @Test
+    public void empty() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+        Assert.assertEquals(0, snapshot.count());
+        Assert.assertEquals(0, snapshot.valueAt(99));
+        Assert.assertEquals(0, snapshot.mean(), 0);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, actual >= expected && actual <= expected + expected / 16);
+    }
+}
@@ -0,0 +1,175 @@
+package org.globsframework.http;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.*;
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.streams.IncrementalGlobJsonDecoder;
+import org.globsframework.json.GSonUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class IncrementalGlobJsonDecoderTest {
+
+    @Test
+    public void decodeAsGSonWhateverTheBufferSplit() {
+        Glob glob = Body.TYPE.instantiate()
+                .set(Body.name, "é \"quoted\" \\ \n 😀")
+                .set(Body.count, -12)
+                .set(Body.id, 1234567890123L)
+                .set(Body.value, 3.5E-3)
+                .set(Body.enabled, true)
+                .set(Body.tags, new String[]{"a", "", "b,c"})
+                .set(Body.ids, new long[]{1, 2, 3})
+                .set(Body.child, Body.TYPE.instantiate().set(Body.name, "child"))
+                .set(Body.children, new Glob[]{Body.TYPE.instantiate().set(Body.count, 1), Body.TYPE.instantiate().set(Body.count, 2)});
+        String json = GSonUtils.encode(glob, false);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        for (int chunk : new int[]{1, 2, 3, 7, bytes.length}) {
+            IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+            for (int i = 0; i < bytes.length; i += chunk) {
+                decoder.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+            }
+            Assert.assertEquals(json, GSonUtils.encode(decoder.complete(), false));
+        }
+    }
+
+    @Test
+    public void unknownFieldsAreSkipped() {
+        IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+        decoder.feed(ByteBuffer.wrap(("{\"other\": {\"a\": [1, {\"b\": null}], \"c\": \"}\"}, \"name\": \"\\u00e9\", \"count\": null}")
+                .getBytes(StandardCharsets.UTF_8)));
+        Glob glob = decoder.complete();
+        Assert.assertEquals("é", glob.get(Body.name));
+        Assert.assertNull(glob.get(Body.count));
+    }
+
+    @Test
+    public void blankBodyIsNull() {
+        IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+        decoder.feed(ByteBuffer.wrap(" \n".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(decoder.complete());
+    }
+
+    @Test
+    public void invalidJsonIsRejected() {
+        IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+        decoder.feed(ByteBuffer.wrap("{\"name\": \"a\"".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertThrows(IllegalArgumentException.class, decoder::complete);
+
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> new IncrementalGlobJsonDecoder(Body.TYPE).feed(ByteBuffer.wrap("{\"name\" 1}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void nullInAnArrayIsRejected() {
+        for (String json : new String[]{"{\"tags\": [\"a\", null]}", "{\"ids\": [1, null]}", "{\"children\": [null]}"}) {
+            IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+            Assert.assertThrows(json, IllegalArgumentException.class,
+                    () -> decoder.feed(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    @Test
+    public void fractionInAnIntegerFieldIsRejected() {
+        IncrementalGlobJsonDecoder decoder = new IncrementalGlobJsonDecoder(Body.TYPE);
+        decoder.feed(ByteBuffer.wrap("{\"count\": 2.0, \"id\": 1e3, \"ids\": [4.00]}".getBytes(StandardCharsets.UTF_8)));
+        Glob glob = decoder.complete();
+        Assert.assertEquals(2, glob.get(Body.count).intValue());
+        Assert.assertEquals(1000L, glob.get(Body.id).longValue());
+        Assert.assertArrayEquals(new long[]{4}, glob.get(Body.ids));
+
+        for (String json : new String[]{"{\"count\": 2.5}", "{\"id\": 1.5}", "{\"ids\": [1, 2.5]}", "{\"count\": 3000000000}"}) {
+            IncrementalGlobJsonDecoder failing = new IncrementalGlobJsonDecoder(Body.TYPE);
+            Assert.assertThrows(json, IllegalArgumentException.class, () -> {
+                failing.feed(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+                failing.complete();
+            });
+        }
+    }
+
+    @Test
+    public void typesWithUnmanagedFieldsAreNotSupported() {
+        Assert.assertTrue(IncrementalGlobJsonDecoder.isSupported(Body.TYPE));
+        Assert.assertFalse(IncrementalGlobJsonDecoder.isSupported(WithDate.TYPE));
+    }
+
+    @Test
+    public void typesOfACycleWithAnUnmanagedFieldAreNotSupported() {
+        Assert.assertFalse(IncrementalGlobJsonDecoder.isSupported(Parent.TYPE));
+        Assert.assertFalse(IncrementalGlobJsonDecoder.isSupported(Child.TYPE));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new IncrementalGlobJsonDecoder(Child.TYPE));
+    }
+
+    public static class Body {
+        public static GlobType TYPE;
+
+        public static StringField name;
+        public static IntegerField count;
+        public static LongField id;
+        public static DoubleField value;
+        public static BooleanField enabled;
+        public static StringArrayField tags;
+        public static LongArrayField ids;
+        public static GlobField child;
+        public static GlobArrayField children;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Body");
+            name = typeBuilder.declareStringField("name");
+            count = typeBuilder.declareIntegerField("count");
+            id = typeBuilder.declareLongField("id");
+            value = typeBuilder.declareDoubleField("value");
+            enabled = typeBuilder.declareBooleanField("enabled");
+            tags = typeBuilder.declareStringArrayField("tags");
+            ids = typeBuilder.declareLongArrayField("ids");
+            child = typeBuilder.declareGlobField("child", () -> Body.TYPE);
+            children = typeBuilder.declareGlobArrayField("children", () -> Body.TYPE);
+            TYPE = typeBuilder.build();
+        }
+    }
+
+    public static class WithDate {
+        public static GlobType TYPE;
+
+        public static DateField date;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("WithDate");
+            date = typeBuilder.declareDateField("date");
+            TYPE = typeBuilder.build();
+        }
+    }
+
+    // Child is compiled while Parent is in progress, before the date field of Parent fails
+    public static class Parent {
+        public static GlobType TYPE;
+
+        public static GlobField child;
+        public static DateField date;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Parent");
+            child = typeBuilder.declareGlobField("child", () -> Child.TYPE);
+            date = typeBuilder.declareDateField("date");
+            TYPE = typeBuilder.build();
+        }
+    }
+
+    public static class Child {
+        public static GlobType TYPE;
+
+        public static GlobField parent;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Child");
+            parent = typeBuilder.declareGlobField("parent", () -> Parent.TYPE);
+            TYPE = typeBuilder.build();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.globsframework.http;
+
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.fields.*;
+import org.globsframework.core.model.Glob;
+import org.globsframework.http.server.apache.QueryParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryParserTest {
+
+    @Test
+    public void parseAndDecodeOnlyWhenNeeded() {
+        QueryParser parser = new QueryParser("test", Query.TYPE);
+        Glob query = parser.parse("name=%C3%A9t%C3%A9+2024&count=12&unknown=1&&enabled&ids=1,2&ids=3&na%6De=last");
+        Assert.assertEquals("last", query.get(Query.name));
+        Assert.assertEquals(12, query.get(Query.count).intValue());
+        Assert.assertNull("no value", query.get(Query.enabled));
+        Assert.assertArrayEquals(new long[]{1, 2, 3}, query.get(Query.ids));
+
+        Assert.assertEquals("été 2024", parser.parse("name=%C3%A9t%C3%A9+2024").get(Query.name));
+        Assert.assertEquals("100%", parser.parse("name=100%").get(Query.name));
+        Assert.assertEquals("", parser.parse("name=").get(Query.name));
+    }
+
+    @Test
+    public void repeatedParametersAreAccumulated() {
+        QueryParser parser = new QueryParser("test", Query.TYPE);
+        Glob query = parser.parse("counts=1,2&ratios=0.5&flags=true,false&counts=3&ratios=1.5,2&flags=TRUE&tags=a,b&tags=c&names");
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, query.get(Query.counts));
+        Assert.assertArrayEquals(new double[]{0.5, 1.5, 2}, query.get(Query.ratios), 0);
+        Assert.assertArrayEquals(new boolean[]{true, false, true}, query.get(Query.flags));
+        Assert.assertArrayEquals(new String[]{"a", "b", "c"}, query.get(Query.tags));
+        Assert.assertNull("no value", query.get(Query.names));
+
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            ids.append("ids=").append(i).append('&');
+        }
+        long[] values = parser.parse(ids.toString()).get(Query.ids);
+        Assert.assertEquals(10000, values.length);
+        Assert.assertEquals(9999, values[9999]);
+    }
+
+    @Test
+    public void manyFieldsAreAllFound() {
+        // 5000 names have no perfect hash: placed by linear probing
+        for (int count : new int[]{100, 5000}) {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Many" + count);
+            for (int i = 0; i < count; i++) {
+                typeBuilder.declareIntegerField("p" + i);
+            }
+            GlobType type = typeBuilder.build();
+            QueryParser parser = new QueryParser("test", type);
+            StringBuilder query = new StringBuilder("unknown=1&");
+            for (int i = 0; i < count; i++) {
+                query.append("p").append(i).append("=").append(i).append("&");
+            }
+            Glob glob = parser.parse(query.toString());
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(i, glob.get(type.getField("p" + i).asIntegerField()).intValue());
+            }
+        }
+    }
+
+    public static class Query {
+        public static GlobType TYPE;
+        public static StringField name;
+        public static IntegerField count;
+        public static BooleanField enabled;
+        public static LongArrayField ids;
+        public static IntegerArrayField counts;
+        public static DoubleArrayField ratios;
+        public static BooleanArrayField flags;
+        public static StringArrayField tags;
+        public static StringArrayField names;
+
+        static {
+            GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Query");
+            name = typeBuilder.declareStringField("name");
+            count = typeBuilder.declareIntegerField("count");
+            enabled = typeBuilder.declareBooleanField("enabled");
+            ids = typeBuilder.declareLongArrayField("ids");
+            counts = typeBuilder.declareIntegerArrayField("counts");
+            ratios = typeBuilder.declareDoubleArrayField("ratios");
+            flags = typeBuilder.declareBooleanArrayField("flags");
+            tags = typeBuilder.declareStringArrayField("tags");
+            names = typeBuilder.declareStringArrayField("names");
+            TYPE = typeBuilder.build();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.globsframework.http;
+
+import org.globsframework.http.server.apache.ReceiveWindow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReceiveWindowTest {
+
+    @Test
+    public void capacityIsGivenBackAsDataIsReleased() {
+        List<Integer> updates = new ArrayList<>();
+        ReceiveWindow window = new ReceiveWindow(1000);
+        window.update(updates::add);
+        Assert.assertEquals(List.of(1000), updates);
+
+        window.received(800);
+        window.update(updates::add);
+        Assert.assertEquals("nothing released", List.of(1000), updates);
+
+        window.released(300);
+        Assert.assertEquals("less than half of the window is free", List.of(1000), updates);
+
+        window.released(500);
+        Assert.assertEquals(List.of(1000, 800), updates);
+
+        window.received(1000);
+        window.released(1000);
+        Assert.assertEquals(List.of(1000, 800, 1000), updates);
+    }
+}
@@ -0,0 +1,72 @@
+package org.globsframework.http;
+
+import org.globsframework.http.server.apache.RouteTrie;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class RouteTrieTest {
+
+    @Test
+    public void exactRouteNeedsTheSameNumberOfSegments() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.register(path("test", null, "TOTO", null), false, "/test/{id}/TOTO/{subId}");
+        trie.register(path("test", null), false, "/test/{id}");
+        trie.register(path("test", null, "TOTO"), false, "/test/{id}/TOTO");
+
+        Assert.assertEquals("/test/{id}/TOTO/{subId}", trie.find(split("test/123/TOTO/4567")));
+        Assert.assertEquals("/test/{id}/TOTO", trie.find(split("test/123/TOTO")));
+        Assert.assertEquals("/test/{id}", trie.find(split("test/123")));
+        Assert.assertNull(trie.find(split("test/123/TOTO/4567/EXTRA")));
+        Assert.assertNull(trie.find(split("test/123/OTHER")));
+    }
+
+    @Test
+    public void firstRegisteredWinsBetweenLiteralAndParameter() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.register(path("a", null), false, "/a/{x}");
+        trie.register(path("a", "b"), false, "/a/b");
+        Assert.assertEquals("/a/{x}", trie.find(split("a/b")));
+
+        trie = new RouteTrie<>();
+        trie.register(path("a", "b"), false, "/a/b");
+        trie.register(path("a", null), false, "/a/{x}");
+        Assert.assertEquals("/a/b", trie.find(split("a/b")));
+        Assert.assertEquals("/a/{x}", trie.find(split("a/c")));
+    }
+
+    @Test
+    public void exactWinsOverWildcardAndLongestWildcardWins() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.register(path("path", null), true, "/path/{all}");
+        trie.register(path("path", "sub", null), true, "/path/sub/{all}");
+        trie.register(path("path", "sub", "exact"), false, "/path/sub/exact");
+
+        Assert.assertEquals("/path/sub/exact", trie.find(split("path/sub/exact")));
+        Assert.assertEquals("/path/sub/{all}", trie.find(split("path/sub/other/more")));
+        Assert.assertEquals("/path/{all}", trie.find(split("path/sub")));
+        Assert.assertEquals("/path/{all}", trie.find(split("path/with")));
+        Assert.assertNull(trie.find(split("path")));
+    }
+
+    @Test
+    public void manyRoutesOfTheSameDepth() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        for (int i = 0; i < 400; i++) {
+            trie.register(path("api", "v1", "resource" + i, null), false, "route" + i);
+        }
+        Assert.assertEquals("route0", trie.find(split("api/v1/resource0/12")));
+        Assert.assertEquals("route399", trie.find(split("api/v1/resource399/12")));
+        Assert.assertNull(trie.find(split("api/v1/resource400/12")));
+    }
+
+    private static List<String> path(String... segments) {
+        return Arrays.asList(segments);
+    }
+
+    private static PathSegments split(String url) {
+        return PathSegments.of("/" + url);
+    }
+}
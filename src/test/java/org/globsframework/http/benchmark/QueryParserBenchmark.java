@@ -0,0 +1,94 @@
+package org.globsframework.http.benchmark;
+
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.net.WWWFormCodec;
+import org.globsframework.core.metamodel.GlobType;
+import org.globsframework.core.metamodel.GlobTypeBuilder;
+import org.globsframework.core.metamodel.GlobTypeBuilderFactory;
+import org.globsframework.core.metamodel.annotations.FieldName;
+import org.globsframework.core.metamodel.fields.*;
+import org.globsframework.core.model.Glob;
+import org.globsframework.core.model.MutableGlob;
+import org.globsframework.http.GlobHttpUtils;
+import org.globsframework.http.server.apache.QueryParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query string parsing, with WWWFormCodec and a map of converters (the previous DefaultParamProcessor) and with
+ * QueryParser. Run with the main: the gc profiler gives the allocated bytes per query (gc.alloc.rate.norm).
+ * <p>
+ * No result is recorded yet: run it before relying on either path being faster or allocating less.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryParserBenchmark {
+    private static final GlobType TYPE;
+    private static final StringField name;
+    private static final IntegerField count;
+    private static final LongField from;
+    private static final BooleanField enabled;
+    private static final StringArrayField tags;
+
+    static {
+        GlobTypeBuilder typeBuilder = GlobTypeBuilderFactory.create("Query");
+        name = typeBuilder.declareStringField("name");
+        count = typeBuilder.declareIntegerField("count");
+        from = typeBuilder.declareLongField("from");
+        enabled = typeBuilder.declareBooleanField("enabled");
+        tags = typeBuilder.declareStringArrayField("tags");
+        TYPE = typeBuilder.build();
+    }
+
+    @Param({"name=globs&count=20&from=1700000000000&enabled=true&tags=a,b",
+            "name=%C3%A9t%C3%A9+2024&count=20&tags=a%2Cb"})
+    public String query;
+
+    private final Map<String, GlobHttpUtils.FromStringConverter> converterMap = new HashMap<>();
+    private final QueryParser queryParser = new QueryParser("bench", TYPE);
+
+    @Setup
+    public void setup() {
+        for (Field field : TYPE.getFields()) {
+            converterMap.put(FieldName.getName(field), GlobHttpUtils.createConverter(field, ","));
+        }
+    }
+
+    @Benchmark
+    public Glob wwwFormCodec() {
+        MutableGlob instantiate = TYPE.instantiateWithDefaults();
+        List<NameValuePair> parse = WWWFormCodec.parse(query, StandardCharsets.UTF_8);
+        for (NameValuePair nameValuePair : parse) {
+            GlobHttpUtils.FromStringConverter fromStringConverter = converterMap.get(nameValuePair.getName());
+            if (fromStringConverter != null) {
+                fromStringConverter.convert(instantiate, nameValuePair.getValue());
+            }
+        }
+        return instantiate;
+    }
+
+    @Benchmark
+    public Glob queryParser() {
+        return queryParser.parse(query);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueryParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}